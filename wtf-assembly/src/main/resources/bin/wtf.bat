@@ -8,6 +8,12 @@
 @set "lock=%home%.lock"
 @copy /y NUL %lock% >NUL
 
-@java -cp "%bin%;%lib%" -DLOGS_DIR=%logs% com.jslib.wtf.cli.Main %*
+@rem application class-data sharing archive, dumped by first run into install and reused by next ones;
+@rem requires Java 13+, older JVMs ignore these options
+@set "jsa=%home%\bin\wtf.jsa"
+@set "cds=-XX:SharedArchiveFile=%jsa%"
+@if not exist "%jsa%" set "cds=-XX:ArchiveClassesAtExit=%jsa%"
+
+@java -XX:+IgnoreUnrecognizedVMOptions -Xshare:auto %cds% -cp "%bin%;%lib%" -DLOGS_DIR=%logs% com.jslib.wtf.cli.Main %*
 
 @del %lock%
@@ -0,0 +1,63 @@
+package com.jslib.wtf.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import js.lang.BugError;
+
+// hex encoded message digests shared by build, caches, daemon and update; hex digits are looked up from a table since
+// formatting every byte dominates hashing of small contents
+public final class Hash {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private static final int BUFFER_SIZE = 8192;
+
+	private Hash() {
+	}
+
+	public static String sha256Hex(byte[] content) {
+		return hex(sha256().digest(content));
+	}
+
+	public static String sha256Hex(Path file) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream stream = Files.newInputStream(file)) {
+			int length;
+			while ((length = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, length);
+			}
+		}
+		return hex(digest.digest());
+	}
+
+	public static MessageDigest sha256() {
+		return digest("SHA-256");
+	}
+
+	public static MessageDigest sha1() {
+		return digest("SHA-1");
+	}
+
+	// lower case hex digits, two per byte
+	public static String hex(byte[] bytes) {
+		char[] chars = new char[2 * bytes.length];
+		for (int i = 0; i < bytes.length; ++i) {
+			chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+			chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	private static MessageDigest digest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1 and SHA-256 are mandatory for all Java platforms
+			throw new BugError("Missing %s message digest.", algorithm);
+		}
+	}
+}
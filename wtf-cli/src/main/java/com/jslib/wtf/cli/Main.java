@@ -2,6 +2,10 @@ package com.jslib.wtf.cli;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import com.jslib.commons.cli.Config;
@@ -9,59 +13,99 @@ import com.jslib.commons.cli.Console;
 import com.jslib.commons.cli.Home;
 import com.jslib.commons.cli.Task;
 import com.jslib.wtf.cli.config.ConfigCommands;
-import com.jslib.wtf.cli.config.ConfigList;
-import com.jslib.wtf.cli.icons.CreateIcons;
-import com.jslib.wtf.cli.project.CreateProject;
-import com.jslib.wtf.cli.server.CreateServer;
+import com.jslib.wtf.cli.daemon.DaemonClient;
+import com.jslib.wtf.cli.daemon.DaemonCommands;
+import com.jslib.wtf.cli.trash.Trash;
 
 import js.lang.BugError;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 
 @Command(name = "wtf", description = "Command line tools for Web Tiny Framework projects.", mixinStandardHelpOptions = true, version = "WTF, version 0.0.1-SNAPSHOT")
 public class Main {
 	public static void main(String... args) throws IOException {
 		Home.setMainClass(Main.class);
+		// resume deletion of directories destroyed by previous runs, if any left; at most one sweeper per resume period
+		new Trash(Paths.get(Home.getPath())).resumeBackground();
+		// delegate to background daemon, if running, to skip picocli wiring and tasks loading
+		Integer exitCode = DaemonClient.exec(Paths.get(Home.getPath()), args);
+		if (exitCode == null) {
+			exitCode = execute(null, args);
+		}
+		System.exit(exitCode);
+	}
+
+	// working directory is null for process working directory; daemon executes commands for clients with their own
+	// working directories and user.dir system property does not change relative paths resolution
+	public static int execute(Path workingDir, String... args) throws IOException {
 		Properties globalProperties = new Properties();
 		Properties projectProperties = new Properties();
 		Config config = new Config(globalProperties, projectProperties);
 
-		Main main = new Main(config);
+		Main main = new Main(config, workingDir);
 		// use wtf.home property to detect if WTF install is properly initialized;
 		// force 'setup' if not
 		if (!config.has("wtf.home")) {
 			args = new String[] { "setup" };
 		}
-		main.run(args);
+		return main.run(args);
 	}
 
 	private final Config config;
 	private final Console console;
+	private final Path workingDir;
 
-	public Main(Config config) {
+	public Main(Config config, Path workingDir) {
 		this.config = config;
 		this.console = new Console();
+		this.workingDir = workingDir;
 	}
 
-	private void run(String... args) {
-		CommandLine createCommands = new CommandLine(new CreateCommands());
-		createCommands.addSubcommand(task(CreateIcons.class));
-		createCommands.addSubcommand(task(CreateProject.class));
-		createCommands.addSubcommand(task(CreateServer.class));
+	// tasks are registered by class name and instantiated only when selected by command line arguments; not selected
+	// tasks are represented by placeholders carrying only name and description, enough for help printouts
+	private static final TaskEntry[] TASKS = new TaskEntry[] { //
+			new TaskEntry("create", "icons", "com.jslib.wtf.cli.icons.CreateIcons", "Create application icons."), //
+			new TaskEntry("create", "project", "com.jslib.wtf.cli.project.CreateProject", "Create named project into current directory."), //
+			new TaskEntry("create", "projects", "com.jslib.wtf.cli.project.CreateProjects", "Create projects described by CSV file into current directory."), //
+			new TaskEntry("create", "server", "com.jslib.wtf.cli.server.CreateServer", "Create server."), //
+			new TaskEntry("config", "list", "com.jslib.wtf.cli.config.ConfigList", "Project properties list."), //
+			new TaskEntry("daemon", "start", "com.jslib.wtf.cli.daemon.DaemonStart", "Start background daemon."), //
+			new TaskEntry("daemon", "stop", "com.jslib.wtf.cli.daemon.DaemonStop", "Stop background daemon."), //
+			new TaskEntry(null, "build", "com.jslib.wtf.cli.build.Build", "Build project pages."), //
+			new TaskEntry(null, "update", "com.jslib.wtf.cli.update.Update", "Update WTF install."), //
+			new TaskEntry(null, "setup", "com.jslib.wtf.cli.Setup", "Set up a new WTF install.") //
+	};
 
-		CommandLine configCommands = new CommandLine(new ConfigCommands());
-		configCommands.addSubcommand(task(ConfigList.class));
+	private int run(String... args) {
+		Map<String, CommandLine> groups = new LinkedHashMap<>();
+		groups.put("create", new CommandLine(new CreateCommands()));
+		groups.put("config", new CommandLine(new ConfigCommands()));
+		groups.put("daemon", new CommandLine(new DaemonCommands()));
 
 		CommandLine commandLine = new CommandLine(this);
-		commandLine.addSubcommand(createCommands);
-		commandLine.addSubcommand(configCommands);
-		commandLine.addSubcommand(task(Update.class));
-		commandLine.addSubcommand(task(Setup.class));
+		for (CommandLine group : groups.values()) {
+			commandLine.addSubcommand(group);
+		}
+
+		String[] commandPath = commandPath(args);
+		for (TaskEntry entry : TASKS) {
+			CommandLine parent = entry.group != null ? groups.get(entry.group) : commandLine;
+			parent.addSubcommand(entry.name, entry.isSelected(commandPath) ? task(entry.className) : entry.placeholder());
+		}
 
 		console.print("Web Tiny Framework");
 		console.crlf();
 
-		System.exit(commandLine.execute(args));
+		return commandLine.execute(args);
+	}
+
+	private Object task(String taskClassName) {
+		try {
+			return task(Class.forName(taskClassName).asSubclass(Task.class));
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new BugError("Invalid task class |%s|.", taskClassName);
+		}
 	}
 
 	private Object task(Class<? extends Task> taskClass) {
@@ -73,9 +117,55 @@ public class Main {
 			Task task = taskClass.newInstance();
 			task.setConfig(config);
 			task.setConsole(console);
+			if (workingDir != null) {
+				task.setFiles(new WorkingDirFiles(workingDir, console));
+			}
 			return task;
 		} catch (InstantiationException | IllegalAccessException e) {
 			throw new BugError("Not instantiable task class |%s|.", taskClass);
 		}
 	}
+
+	// first two positional arguments, that is, command group and task name or task name only for root tasks
+	private static String[] commandPath(String... args) {
+		String[] commandPath = new String[2];
+		int index = 0;
+		for (String arg : args) {
+			if (arg.startsWith("-")) {
+				continue;
+			}
+			commandPath[index++] = arg;
+			if (index == commandPath.length) {
+				break;
+			}
+		}
+		return commandPath;
+	}
+
+	private static class TaskEntry {
+		final String group;
+		final String name;
+		final String className;
+		final String description;
+
+		TaskEntry(String group, String name, String className, String description) {
+			this.group = group;
+			this.name = name;
+			this.className = className;
+			this.description = description;
+		}
+
+		boolean isSelected(String[] commandPath) {
+			if (group == null) {
+				return name.equals(commandPath[0]);
+			}
+			return group.equals(commandPath[0]) && name.equals(commandPath[1]);
+		}
+
+		CommandLine placeholder() {
+			CommandSpec spec = CommandSpec.create().name(name);
+			spec.usageMessage().description(description);
+			return new CommandLine(spec);
+		}
+	}
 }
@@ -0,0 +1,33 @@
+package com.jslib.wtf.cli;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+import com.jslib.commons.cli.Console;
+import com.jslib.commons.cli.FilesUtil;
+
+// files utility for a given working directory, used by daemon to execute commands on behalf of clients started from
+// other directories; relative paths are resolved against client working directory, not daemon process one
+class WorkingDirFiles extends FilesUtil {
+	private final Path workingDir;
+
+	public WorkingDirFiles(Path workingDir, Console console) {
+		super(FileSystems.getDefault(), console);
+		this.workingDir = workingDir;
+	}
+
+	@Override
+	public Path getWorkingDir() {
+		return workingDir;
+	}
+
+	@Override
+	public Path getProjectDir() {
+		return workingDir;
+	}
+
+	@Override
+	public Path getPath(String path) {
+		return workingDir.resolve(path);
+	}
+}
@@ -0,0 +1,88 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Task;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "build", description = "Build project pages into build.target directory.")
+public class Build extends Task {
+	@Option(names = { "-f", "--full" }, description = "Rebuild all pages, ignoring build state from previous builds.")
+	private boolean full;
+	@Option(names = { "-w", "--watch" }, description = "Keep watching project files and rebuild affected pages on change. Stop with Ctrl-C.")
+	private boolean watch;
+	@Option(names = "--debounce", description = "Milliseconds without file events before watch rebuild. Default: ${DEFAULT-VALUE}", defaultValue = "100")
+	private long debounce;
+	@Option(names = "--no-bundle", description = "Link project style and script files as they are, instead of minified bundles per page. Useful while debugging.")
+	private boolean noBundle;
+	@Option(names = "--no-critical", description = "Link page style bundle as it is, instead of inlining page critical styles and loading bundle asynchronously.")
+	private boolean noCritical;
+	@Option(names = "--no-compress", description = "Do not store gzip and brotli compressed siblings of build files. Brotli needs brotli.path property.")
+	private boolean noCompress;
+	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about built pages.")
+	private boolean verbose;
+
+	@Override
+	protected ExitCode exec() throws Exception {
+		if (debounce < 0) {
+			console.print("Bad debounce value %d. Should not be negative.", debounce);
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+		Path projectDir = files.getProjectDir();
+		if (!files.exists(projectDir.resolve(Project.DESCRIPTOR_FILE))) {
+			console.print("Project descriptor not found. Is %s a WTF project?", projectDir);
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+		Path targetDir = projectDir.resolve(config.getex("build.target"));
+
+		Builder builder = new Builder(projectDir, targetDir);
+		builder.setBundle(!noBundle);
+		builder.setCritical(!noCritical);
+		if (!noCompress) {
+			// brotli compression is skipped if brotli tool is not configured
+			builder.setCompressor(new Compressor(config.get("brotli.path")));
+		}
+		build(builder, full);
+		if (!watch) {
+			return ExitCode.SUCCESS;
+		}
+
+		// builder is reused by all rebuilds from this JVM; it only rebuilds pages affected by changed files
+		console.print("Watching project files. Press Ctrl-C to stop.");
+		try (Watcher watcher = new Watcher(projectDir)) {
+			for (;;) {
+				Set<String> changes = watcher.await(debounce);
+				if (verbose) {
+					changes.forEach(change -> console.print("Changed file %s.", change));
+				}
+				try {
+					build(builder, false);
+				} catch (Exception e) {
+					// keep watching on any build failure, not only I/O; a broken layout is usually fixed by the next edit
+					console.warning("%s", e.getMessage() != null ? e.getMessage() : e);
+				}
+			}
+		}
+	}
+
+	private void build(Builder builder, boolean full) throws IOException {
+		long start = System.currentTimeMillis();
+		List<String> pages = builder.build(full);
+		if (verbose) {
+			pages.forEach(page -> console.print("Build page %s.", page));
+		}
+		builder.getWarnings().forEach(warning -> console.warning(warning));
+		if (verbose && builder.getCompressedCount() > 0) {
+			console.print("Compressed %d build files.", builder.getCompressedCount());
+		}
+		console.print("Built %d of %d pages in %d msec.", pages.size(), builder.getPagesCount(), System.currentTimeMillis() - start);
+	}
+}
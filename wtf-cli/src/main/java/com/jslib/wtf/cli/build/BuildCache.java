@@ -0,0 +1,146 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// build state stored into build target directory: for every build unit, usually a page, the project files it depends on,
+// with their fingerprints at unit build time, and the files it produced, relative to build directory
+//
+// a unit is stale if any dependency fingerprint changed or any produced file is missing; cleaning build directory removes
+// build state too and forces a full build
+//
+// build options are stored too, so that a build with different options can discard build state
+class BuildCache {
+	public static final String CACHE_FILE = ".wtf-build";
+
+	private final Path targetDir;
+	private final Map<String, Unit> units = new TreeMap<>();
+	private String options = "";
+
+	public BuildCache(Path targetDir) {
+		this.targetDir = targetDir;
+	}
+
+	public void clear() {
+		units.clear();
+	}
+
+	public void load() throws IOException {
+		units.clear();
+		options = "";
+		Path cacheFile = targetDir.resolve(CACHE_FILE);
+		if (!Files.exists(cacheFile)) {
+			return;
+		}
+		Unit unit = null;
+		for (String line : Files.readAllLines(cacheFile, StandardCharsets.UTF_8)) {
+			String[] fields = line.split("\t");
+			switch (fields[0]) {
+			case "options":
+				options = fields.length > 1 ? fields[1] : "";
+				break;
+
+			case "unit":
+				unit = new Unit();
+				units.put(fields[1], unit);
+				break;
+
+			case "dep":
+				unit.dependencies.put(fields[1], fields[2]);
+				break;
+
+			case "out":
+				unit.outputs.add(fields[1]);
+				break;
+
+			default:
+				// unknown line from a newer build cache format; drop all and force full build
+				units.clear();
+				return;
+			}
+		}
+	}
+
+	public void save() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		builder.append("options\t").append(options).append('\n');
+		units.forEach((name, unit) -> {
+			builder.append("unit\t").append(name).append('\n');
+			unit.dependencies.forEach((path, fingerprint) -> builder.append("dep\t").append(path).append('\t').append(fingerprint).append('\n'));
+			unit.outputs.forEach(output -> builder.append("out\t").append(output).append('\n'));
+		});
+
+		Files.createDirectories(targetDir);
+		Path tempFile = targetDir.resolve(CACHE_FILE + ".tmp");
+		Files.write(tempFile, builder.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(tempFile, targetDir.resolve(CACHE_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, targetDir.resolve(CACHE_FILE), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public String getOptions() {
+		return options;
+	}
+
+	public void setOptions(String options) {
+		this.options = options;
+	}
+
+	public boolean isStale(String name, Fingerprints fingerprints) {
+		Unit unit = units.get(name);
+		if (unit == null) {
+			return true;
+		}
+		for (Map.Entry<String, String> dependency : unit.dependencies.entrySet()) {
+			if (!dependency.getValue().equals(fingerprints.get(dependency.getKey()))) {
+				return true;
+			}
+		}
+		for (String output : unit.outputs) {
+			if (!Files.exists(targetDir.resolve(output))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void update(String name, Set<String> dependencies, List<String> outputs, Fingerprints fingerprints) {
+		Unit unit = new Unit();
+		dependencies.forEach(dependency -> unit.dependencies.put(dependency, fingerprints.get(dependency)));
+		unit.outputs.addAll(outputs);
+		units.put(name, unit);
+	}
+
+	public Set<String> getUnits() {
+		return Collections.unmodifiableSet(units.keySet());
+	}
+
+	public List<String> getOutputs(String name) {
+		Unit unit = units.get(name);
+		return unit != null ? unit.outputs : Collections.emptyList();
+	}
+
+	// remove unit from build state and return its produced files
+	public List<String> remove(String name) {
+		Unit unit = units.remove(name);
+		return unit != null ? unit.outputs : Collections.emptyList();
+	}
+
+	private static class Unit {
+		final Map<String, String> dependencies = new LinkedHashMap<>();
+		final List<String> outputs = new ArrayList<>();
+	}
+}
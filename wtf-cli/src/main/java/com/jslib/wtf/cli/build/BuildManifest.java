@@ -0,0 +1,136 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.jslib.wtf.cli.Hash;
+
+// build files manifest stored into build directory: size, modification time and SHA-256 content hash of build files
+// and sizes of their compressed siblings, see Compressor; content hashes are shared by service worker precache manifest
+// and compressor so that a build file is hashed at most once per build
+//
+// a build file with the same size and modification time as in previous manifest keeps its hash and is not read; file
+// modified in the same clock tick manifest was stored is hashed again since a later write in that tick, with the same
+// size, would not change its modification time
+class BuildManifest {
+	public static final String FILE = "build-manifest.json";
+	// compressed size for files not compressed, either not compressible or compressed size is not smaller
+	public static final long NONE = 0;
+	// compressed size for files not compressed by this build, e.g. compression disabled or brotli tool not configured
+	public static final long UNKNOWN = -1;
+
+	private static final Pattern ENTRY_PATTERN = Pattern.compile("^\"(.+)\": \\{\"size\": (\\d+), \"modified\": (\\d+), \"hash\": \"([0-9a-f]+)\", \"gzip\": (-?\\d+), \"br\": (-?\\d+)\\},?$");
+
+	private final Path targetDir;
+	private final Map<String, Entry> previousEntries = new HashMap<>();
+	private final long storedTime;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public BuildManifest(Path targetDir) throws IOException {
+		this.targetDir = targetDir;
+		Path manifestFile = targetDir.resolve(FILE);
+		if (!Files.exists(manifestFile)) {
+			this.storedTime = 0;
+			return;
+		}
+		this.storedTime = Files.getLastModifiedTime(manifestFile).toMillis();
+		for (String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+			Matcher matcher = ENTRY_PATTERN.matcher(line.trim());
+			if (matcher.matches()) {
+				String path = matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\");
+				previousEntries.put(path, new Entry(Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)), matcher.group(4), Long.parseLong(matcher.group(5)), Long.parseLong(matcher.group(6))));
+			}
+		}
+	}
+
+	// content hash of build file, relative to build directory, or null if file is missing; safe to call concurrently
+	public String hash(String file) throws IOException {
+		Entry entry = entries.get(file);
+		if (entry != null) {
+			return entry.hash;
+		}
+
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(targetDir.resolve(file), BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		Entry previous = previousEntries.get(file);
+		String hash;
+		if (previous != null && previous.size == size && previous.modified == modified && modified < storedTime) {
+			hash = previous.hash;
+		} else {
+			hash = Hash.sha256Hex(Files.readAllBytes(targetDir.resolve(file)));
+		}
+		// compressed sizes are set by compressor, if any, on current build
+		entries.putIfAbsent(file, new Entry(size, modified, hash, UNKNOWN, UNKNOWN));
+		return entries.get(file).hash;
+	}
+
+	// entry from previous build manifest; null if file was not in manifest
+	public Entry getPrevious(String file) {
+		return previousEntries.get(file);
+	}
+
+	public void setCompressed(String file, long gzip, long brotli) {
+		entries.computeIfPresent(file, (path, entry) -> new Entry(entry.size, entry.modified, entry.hash, gzip, brotli));
+	}
+
+	// true if no build file was hashed by current build
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	// store entries of build files hashed by current build; manifest is JSON with an entry per line
+	public void save() throws IOException {
+		List<String> lines = new ArrayList<>();
+		new TreeMap<>(entries).forEach((path, entry) -> {
+			lines.add(format("\"%s\": {\"size\": %d, \"modified\": %d, \"hash\": \"%s\", \"gzip\": %d, \"br\": %d}", path.replace("\\", "\\\\").replace("\"", "\\\""), entry.size, entry.modified, entry.hash, entry.gzip, entry.brotli));
+		});
+		String manifest = "{\n" + String.join(",\n", lines) + "\n}\n";
+
+		Path manifestFile = targetDir.resolve(FILE);
+		Path tempFile = manifestFile.resolveSibling(FILE + ".tmp");
+		Files.write(tempFile, manifest.getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(tempFile, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public static class Entry {
+		final long size;
+		final long modified;
+		final String hash;
+		final long gzip;
+		final long brotli;
+
+		Entry(long size, long modified, String hash, long gzip, long brotli) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+			this.gzip = gzip;
+			this.brotli = brotli;
+		}
+	}
+}
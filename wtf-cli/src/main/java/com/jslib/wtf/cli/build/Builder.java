@@ -0,0 +1,342 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// incremental project build: a page is rebuilt only if a project file it depends on changed since its last build or if
+// one of its build files is missing; pages removed from project have their build files removed
+//
+// project descriptor and shared components are parsed only if there is at least one page to build; parsed models are
+// immutable, shared by pages built in parallel and reused by next builds, e.g. on watch mode, while their files are
+// unchanged
+class Builder {
+	private final Path projectDir;
+	private final Path targetDir;
+	private final BuildCache cache;
+
+	private final Set<String> warnings = new LinkedHashSet<>();
+	private boolean bundle = true;
+	private boolean critical = true;
+	private Compressor compressor;
+	private int compressedCount;
+	private int pagesCount;
+	private Project project;
+
+	public Builder(Path projectDir, Path targetDir) {
+		this.projectDir = projectDir;
+		this.targetDir = targetDir;
+		this.cache = new BuildCache(targetDir);
+	}
+
+	// return built pages, relative to project
+	public List<String> build(boolean full) throws IOException {
+		warnings.clear();
+		compressedCount = 0;
+		if (full) {
+			// an empty build state makes all units stale
+			cache.clear();
+		} else {
+			cache.load();
+		}
+		String options = "bundle=" + bundle + ",critical=" + critical + ",compress=" + (compressor != null);
+		if (!options.equals(cache.getOptions())) {
+			cache.clear();
+			cache.setOptions(options);
+		}
+		Fingerprints fingerprints = new Fingerprints(projectDir);
+
+		List<String> pages = Component.list(projectDir, Project.PAGES_DIR);
+		pagesCount = pages.size();
+		boolean removed = false;
+		for (String unit : new ArrayList<>(cache.getUnits())) {
+			if (!unit.equals(Project.DESCRIPTOR_FILE) && !pages.contains(unit)) {
+				removed |= removeOutputs(cache.remove(unit));
+			}
+		}
+
+		List<String> stalePages = new ArrayList<>();
+		for (String page : pages) {
+			if (cache.isStale(page, fingerprints)) {
+				stalePages.add(page);
+			}
+		}
+		boolean projectStale = cache.isStale(Project.DESCRIPTOR_FILE, fingerprints);
+		// removed build files are still listed by service worker precache manifest and compressed files manifest
+		if (stalePages.isEmpty() && !projectStale && !removed) {
+			cache.save();
+			return stalePages;
+		}
+
+		if (project == null || project.isStale(fingerprints)) {
+			project = new Project(projectDir, fingerprints);
+		} else {
+			project.refresh(fingerprints);
+		}
+		if (projectStale) {
+			buildProjectFiles(project, fingerprints);
+		}
+		// every page is built for every project locale; strings for all locales are compiled on project and components
+		// load so locale pages do not parse strings files again
+		List<String[]> localePages = new ArrayList<>();
+		for (String page : stalePages) {
+			project.getDescriptor().getLocales().forEach(locale -> localePages.add(new String[] { page, locale }));
+		}
+		Set<String> copiedFiles = ConcurrentHashMap.newKeySet();
+		// locale pages are independent and built on common fork join pool; build state is updated from current thread, in
+		// pages order, after all pages are built
+		Map<String, PageBuild> pageBuilds = new LinkedHashMap<>();
+		try {
+			localePages.parallelStream().map(localePage -> {
+				try {
+					return buildPage(project, localePage[0], localePage[1], copiedFiles);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).collect(Collectors.toList()).forEach(pageBuild -> pageBuilds.merge(pageBuild.page, pageBuild, PageBuild::merge));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		for (PageBuild pageBuild : pageBuilds.values()) {
+			// previous build files are left behind when names change, e.g. bundles named after content hash
+			List<String> previousOutputs = new ArrayList<>(cache.getOutputs(pageBuild.page));
+			previousOutputs.removeAll(pageBuild.outputs);
+			cache.update(pageBuild.page, pageBuild.dependencies, pageBuild.outputs, fingerprints);
+			removeOutputs(previousOutputs);
+			warnings.addAll(pageBuild.warnings);
+		}
+
+		// content hashes are shared by precache manifest and compressor and reused from previous build for unchanged files
+		BuildManifest manifest = new BuildManifest(targetDir);
+		buildServiceWorker(project, manifest);
+		if (compressor != null) {
+			// compressor skips files with the same hash as on previous build, e.g. bundles shared with pages not rebuilt
+			Set<String> outputs = new LinkedHashSet<>();
+			cache.getUnits().forEach(unit -> outputs.addAll(cache.getOutputs(unit)));
+			compressedCount = compressor.compress(targetDir, outputs, manifest);
+			warnings.addAll(compressor.getWarnings());
+		}
+		if (!manifest.isEmpty()) {
+			manifest.save();
+		}
+		cache.save();
+		return stalePages;
+	}
+
+	private PageBuild buildPage(Project project, String page, String locale, Set<String> copiedFiles) throws IOException {
+		Component component = project.getComponent(page);
+		PageComposer composer = new PageComposer(project, locale, bundle, critical);
+		String document = composer.compose(component);
+
+		Set<String> dependencies = new LinkedHashSet<>(composer.getDependencies());
+		List<String> outputs = new ArrayList<>();
+		String pageFile = project.getLocaleDir(locale) + page.substring(page.lastIndexOf('/') + 1) + ".htm";
+		Files.createDirectories(targetDir.resolve(pageFile).getParent());
+		Files.write(targetDir.resolve(pageFile), document.getBytes(StandardCharsets.UTF_8));
+		outputs.add(pageFile);
+
+		for (Bundle pageBundle : composer.getBundles()) {
+			// bundle name is content hash so an existing bundle has the same content
+			if (copiedFiles.add(pageBundle.getPath()) && !Files.exists(targetDir.resolve(pageBundle.getPath()))) {
+				Files.createDirectories(targetDir.resolve(Bundle.DIR));
+				Files.write(targetDir.resolve(pageBundle.getPath()), pageBundle.getContent().getBytes(StandardCharsets.UTF_8));
+			}
+			outputs.add(pageBundle.getPath());
+		}
+
+		// linked files are page dependencies too, so that an edited script is copied again; bundled styles and scripts are
+		// only dependencies while files referenced by styles, e.g. fonts, are copied in both cases
+		List<String> linkedFiles = new ArrayList<>();
+		for (Style style : composer.getStyles()) {
+			if (bundle) {
+				dependencies.add(style.getSource());
+			} else {
+				linkedFiles.add(style.getSource());
+			}
+			linkedFiles.addAll(project.getStylesheet(style.getSource()).getFiles());
+		}
+		for (Script script : composer.getScripts()) {
+			if (!script.isLocal()) {
+				continue;
+			}
+			if (bundle || script.isEmbedded()) {
+				dependencies.add(script.getSource());
+			} else {
+				linkedFiles.add(script.getSource());
+			}
+		}
+		linkedFiles.addAll(composer.getImages());
+		for (ResponsiveImage image : composer.getResponsiveImages()) {
+			dependencies.add(image.getSource());
+			List<String> variants = image.getVariants().stream().map(ResponsiveImage.Variant::getPath).collect(Collectors.toList());
+			// variants are named after source hash so that existing variants are not encoded again
+			if (copiedFiles.add(variants.get(0))) {
+				image.write(targetDir);
+			}
+			outputs.addAll(variants);
+		}
+		for (String linkedFile : linkedFiles) {
+			dependencies.add(linkedFile);
+			String targetFile = Project.target(linkedFile);
+			// files shared by pages are copied by the first page that links them
+			if (copiedFiles.add(targetFile)) {
+				copy(projectDir.resolve(linkedFile), targetDir.resolve(targetFile));
+			}
+			outputs.add(targetFile);
+		}
+		return new PageBuild(page, dependencies, outputs, composer.getWarnings());
+	}
+
+	// web application manifest, with references resolved, and service worker script; service worker is stored into build
+	// root since its location determines the scope of the pages it controls
+	private void buildProjectFiles(Project project, Fingerprints fingerprints) throws IOException {
+		ProjectDescriptor descriptor = project.getDescriptor();
+		Set<String> dependencies = new LinkedHashSet<>(project.getFiles());
+		List<String> outputs = new ArrayList<>();
+		PageComposer composer = new PageComposer(project, descriptor.getLocales().get(0), false, false);
+
+		String manifest = descriptor.getManifest();
+		if (manifest != null && Files.exists(projectDir.resolve(manifest))) {
+			dependencies.add(manifest);
+			String content = composer.resolve(new String(Files.readAllBytes(projectDir.resolve(manifest)), StandardCharsets.UTF_8));
+			Files.createDirectories(targetDir.resolve(manifest).getParent());
+			Files.write(targetDir.resolve(manifest), content.getBytes(StandardCharsets.UTF_8));
+			outputs.add(manifest);
+			for (String image : composer.getImages()) {
+				dependencies.add(image);
+				copy(projectDir.resolve(image), targetDir.resolve(Project.target(image)));
+				outputs.add(Project.target(image));
+			}
+		}
+
+		// service worker is written after pages build, see buildServiceWorker
+		String serviceWorker = descriptor.getServiceWorker();
+		if (serviceWorker != null && Files.exists(projectDir.resolve(serviceWorker))) {
+			dependencies.add(serviceWorker);
+			outputs.add(serviceWorker.substring(serviceWorker.lastIndexOf('/') + 1));
+		}
+
+		cache.update(Project.DESCRIPTOR_FILE, dependencies, outputs, fingerprints);
+		warnings.addAll(composer.getWarnings());
+	}
+
+	// service worker script is copied as it is, unless it has precache manifest placeholder; manifest lists all build
+	// files so it is injected after all pages are built
+	private void buildServiceWorker(Project project, BuildManifest manifest) throws IOException {
+		String serviceWorker = project.getDescriptor().getServiceWorker();
+		if (serviceWorker == null || !Files.exists(projectDir.resolve(serviceWorker))) {
+			return;
+		}
+		String targetFile = serviceWorker.substring(serviceWorker.lastIndexOf('/') + 1);
+		String script = new String(Files.readAllBytes(projectDir.resolve(serviceWorker)), StandardCharsets.UTF_8);
+		if (!Precache.isPrecache(script)) {
+			copy(projectDir.resolve(serviceWorker), targetDir.resolve(targetFile));
+			return;
+		}
+
+		Set<String> outputs = new LinkedHashSet<>();
+		cache.getUnits().forEach(unit -> outputs.addAll(cache.getOutputs(unit)));
+		outputs.remove(targetFile);
+		byte[] content = Precache.inject(script, outputs, manifest).getBytes(StandardCharsets.UTF_8);
+		// service worker is written only if precache manifest changed
+		Path file = targetDir.resolve(targetFile);
+		if (!Files.exists(file) || !Arrays.equals(content, Files.readAllBytes(file))) {
+			Files.write(file, content);
+		}
+	}
+
+	// remove build files not produced by any unit, together with their compressed siblings; return true if any build
+	// file was removed
+	private boolean removeOutputs(List<String> outputs) throws IOException {
+		if (outputs.isEmpty()) {
+			return false;
+		}
+		Set<String> usedOutputs = new HashSet<>();
+		cache.getUnits().forEach(unit -> usedOutputs.addAll(cache.getOutputs(unit)));
+		boolean removed = false;
+		for (String output : outputs) {
+			if (!usedOutputs.contains(output)) {
+				removed |= Files.deleteIfExists(targetDir.resolve(output));
+				for (String sibling : Compressor.SIBLINGS) {
+					Files.deleteIfExists(targetDir.resolve(output + sibling));
+				}
+			}
+		}
+		return removed;
+	}
+
+	public void setBundle(boolean bundle) {
+		this.bundle = bundle;
+	}
+
+	// inline page critical styles and load style bundle asynchronously; needs bundling
+	public void setCritical(boolean critical) {
+		this.critical = critical;
+	}
+
+	// null compressor disables build files compression
+	public void setCompressor(Compressor compressor) {
+		this.compressor = compressor;
+	}
+
+	public int getCompressedCount() {
+		return compressedCount;
+	}
+
+	public int getPagesCount() {
+		return pagesCount;
+	}
+
+	public Set<String> getWarnings() {
+		return warnings;
+	}
+
+	private static class PageBuild {
+		final String page;
+		final Set<String> dependencies;
+		final List<String> outputs;
+		final Set<String> warnings;
+
+		PageBuild(String page, Set<String> dependencies, List<String> outputs, Set<String> warnings) {
+			this.page = page;
+			this.dependencies = dependencies;
+			this.outputs = outputs;
+			this.warnings = warnings;
+		}
+
+		// merge build of the same page for another locale
+		PageBuild merge(PageBuild other) {
+			dependencies.addAll(other.dependencies);
+			other.outputs.stream().filter(output -> !outputs.contains(output)).forEach(outputs::add);
+			warnings.addAll(other.warnings);
+			return this;
+		}
+	}
+
+	// copy file only if target is missing or has different size or modification time
+	private static void copy(Path sourceFile, Path targetFile) throws IOException {
+		if (Files.exists(targetFile)) {
+			BasicFileAttributes source = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+			BasicFileAttributes target = Files.readAttributes(targetFile, BasicFileAttributes.class);
+			if (source.size() == target.size() && source.lastModifiedTime().equals(target.lastModifiedTime())) {
+				return;
+			}
+		}
+		Files.createDirectories(targetFile.getParent());
+		Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+	}
+}
@@ -0,0 +1,33 @@
+package com.jslib.wtf.cli.build;
+
+import java.nio.charset.StandardCharsets;
+
+import com.jslib.wtf.cli.Hash;
+
+// build file merged from many project files, stored into bundles directory and named after content hash so that it can
+// be cached by browsers for long time; a bundle with changed content gets a new name
+class Bundle {
+	public static final String DIR = "bundle";
+	private static final int HASH_LENGTH = 10;
+
+	private final String path;
+	private final String content;
+
+	public Bundle(String name, String extension, String content) {
+		this.path = DIR + "/" + name + "." + hash(content) + "." + extension;
+		this.content = content;
+	}
+
+	// bundle path relative to build directory
+	public String getPath() {
+		return path;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	private static String hash(String content) {
+		return Hash.sha256Hex(content.getBytes(StandardCharsets.UTF_8)).substring(0, HASH_LENGTH);
+	}
+}
@@ -0,0 +1,176 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+// WOOD component from a project directory, e.g. res/page/index or lib/captcha; layout file, named after directory with
+// htm extension, is mandatory while descriptor, styles and strings are optional
+//
+// component files are listed as build dependencies, together with component directory whose modification time
+// changes when files are added or removed
+class Component {
+	private static final DocumentBuilderFactory FACTORY = DocumentBuilderFactory.newInstance();
+
+	private final String path;
+	private final Element layout;
+	private final String title;
+	private final String description;
+	private final List<Script> scripts;
+	private final List<Style> styles;
+	private final StringTable strings;
+	private final List<String> files;
+
+	public Component(Path projectDir, String path, Map<String, String> mediaQueries) throws IOException {
+		this.path = path;
+		Path componentDir = projectDir.resolve(path);
+		String name = componentDir.getFileName().toString();
+
+		Path layoutFile = componentDir.resolve(name + ".htm");
+		if (!Files.exists(layoutFile)) {
+			throw new IOException(format("Missing component layout %s.", layoutFile));
+		}
+		List<String> files = new ArrayList<>();
+		files.add(path);
+		files.add(path + "/" + name + ".htm");
+		this.layout = Markup.parse(layoutFile);
+
+		Path descriptorFile = componentDir.resolve(name + ".xml");
+		List<Script> scripts = new ArrayList<>();
+		String title = null;
+		String description = null;
+		if (Files.exists(descriptorFile)) {
+			files.add(path + "/" + name + ".xml");
+			org.w3c.dom.Element root = document(descriptorFile).getDocumentElement();
+			title = text(root, "title");
+			description = text(root, "description");
+			NodeList nodes = root.getElementsByTagName("script");
+			for (int i = 0; i < nodes.getLength(); ++i) {
+				org.w3c.dom.Element script = (org.w3c.dom.Element) nodes.item(i);
+				scripts.add(new Script(script.getAttribute("src"), "true".equals(script.getAttribute("defer")), "true".equals(script.getAttribute("embedded"))));
+			}
+		}
+		this.title = title;
+		this.description = description;
+		this.scripts = Collections.unmodifiableList(scripts);
+
+		// base style first, followed by media query variants in project descriptor order
+		List<Style> styles = new ArrayList<>();
+		if (Files.exists(componentDir.resolve(name + ".css"))) {
+			styles.add(new Style(path + "/" + name + ".css", null));
+		}
+		for (String alias : mediaQueries.keySet()) {
+			String styleFile = format("%s_%s.css", name, alias);
+			if (Files.exists(componentDir.resolve(styleFile))) {
+				styles.add(Style.of(path + "/" + styleFile, mediaQueries));
+			}
+		}
+		styles.forEach(style -> files.add(style.getSource()));
+		this.styles = Collections.unmodifiableList(styles);
+
+		this.strings = new StringTable(projectDir, path);
+		files.addAll(strings.getFiles());
+		this.files = Collections.unmodifiableList(files);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public Element getLayout() {
+		return layout;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public List<Script> getScripts() {
+		return scripts;
+	}
+
+	public List<Style> getStyles() {
+		return styles;
+	}
+
+	// component strings for locale, without default strings, see StringTable
+	public Map<String, String> getStrings(String locale) {
+		return strings.getLocale(locale);
+	}
+
+	public Map<String, String> getDefaultStrings() {
+		return strings.getDefaults();
+	}
+
+	public List<String> getFiles() {
+		return files;
+	}
+
+	// strings file has a root element with a child element for every string, element name being string name
+	public static Map<String, String> strings(Path file) throws IOException {
+		Map<String, String> strings = new LinkedHashMap<>();
+		NodeList nodes = document(file).getDocumentElement().getChildNodes();
+		for (int i = 0; i < nodes.getLength(); ++i) {
+			if (nodes.item(i) instanceof org.w3c.dom.Element) {
+				strings.put(nodes.item(i).getNodeName(), nodes.item(i).getTextContent().trim());
+			}
+		}
+		return strings;
+	}
+
+	// list component directories, relative to project, from a components container directory, e.g. res/page
+	public static List<String> list(Path projectDir, String containerPath) throws IOException {
+		List<String> components = new ArrayList<>();
+		Path containerDir = projectDir.resolve(containerPath);
+		if (!Files.isDirectory(containerDir)) {
+			return components;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(containerDir, Files::isDirectory)) {
+			for (Path dir : stream) {
+				if (Files.exists(dir.resolve(dir.getFileName() + ".htm"))) {
+					components.add(containerPath + "/" + dir.getFileName());
+				}
+			}
+		}
+		Collections.sort(components);
+		return components;
+	}
+
+	private static Document document(Path file) throws IOException {
+		try {
+			DocumentBuilder builder;
+			// factory is not guaranteed thread safe; document builder is used by current thread only
+			synchronized (FACTORY) {
+				builder = FACTORY.newDocumentBuilder();
+			}
+			return builder.parse(file.toFile());
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException(format("Fail to parse %s: %s", file, e.getMessage()), e);
+		}
+	}
+
+	private static String text(org.w3c.dom.Element root, String tagName) {
+		NodeList nodes = root.getElementsByTagName(tagName);
+		return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : null;
+	}
+}
@@ -0,0 +1,189 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// precompressed siblings for compressible build files, gzip and, if brotli tool is configured, brotli, e.g. index.htm.gz
+// and index.htm.br; web servers can serve them with no compression cost per request
+//
+// compressed sizes are stored into build manifest, see BuildManifest; a file with the same hash as in previous manifest
+// and existing siblings is not compressed again
+class Compressor {
+	public static final String[] SIBLINGS = { ".gz", ".br" };
+
+	private static final Set<String> EXTENSIONS = new HashSet<>(Arrays.asList("htm", "html", "css", "js", "mjs", "json", "xml", "svg", "txt", "ico", "map", "webmanifest"));
+	private static final long NONE = BuildManifest.NONE;
+	private static final long UNKNOWN = BuildManifest.UNKNOWN;
+
+	private final String brotliPath;
+	private final AtomicBoolean brotliAvailable;
+	private final Set<String> warnings = ConcurrentHashMap.newKeySet();
+
+	// brotli path is null if brotli tool is not configured
+	public Compressor(String brotliPath) {
+		this.brotliPath = brotliPath;
+		this.brotliAvailable = new AtomicBoolean(brotliPath != null);
+	}
+
+	// compress build files, in parallel, and set compressed sizes on build manifest; returns the number of compressed
+	// files
+	public int compress(Path targetDir, Collection<String> files, BuildManifest manifest) throws IOException {
+		warnings.clear();
+		AtomicInteger compressedCount = new AtomicInteger();
+		try {
+			files.parallelStream().forEach(file -> {
+				try {
+					if (compress(targetDir, file, manifest)) {
+						compressedCount.incrementAndGet();
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return compressedCount.get();
+	}
+
+	public Set<String> getWarnings() {
+		return warnings;
+	}
+
+	// return true if file was compressed by current build
+	private boolean compress(Path targetDir, String path, BuildManifest manifest) throws IOException {
+		// hash is usually computed already, by service worker precache manifest, or reused from previous manifest
+		String hash = manifest.hash(path);
+		if (hash == null) {
+			return false;
+		}
+		Path file = targetDir.resolve(path);
+		String fileName = file.getFileName().toString();
+		String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+		if (!EXTENSIONS.contains(extension)) {
+			manifest.setCompressed(path, NONE, NONE);
+			return false;
+		}
+
+		boolean brotli = brotliAvailable.get();
+		Path gzipFile = sibling(file, ".gz");
+		Path brotliFile = sibling(file, ".br");
+		BuildManifest.Entry previous = manifest.getPrevious(path);
+		if (previous != null && previous.hash.equals(hash) && previous.gzip != UNKNOWN && (previous.gzip == NONE || Files.exists(gzipFile))) {
+			// an existing brotli sibling for the same hash is still valid, even if brotli tool is not available anymore
+			boolean brotliValid = previous.brotli == UNKNOWN ? !brotli : previous.brotli == NONE || Files.exists(brotliFile);
+			if (brotliValid) {
+				manifest.setCompressed(path, previous.gzip, previous.brotli);
+				return false;
+			}
+		}
+
+		byte[] content = Files.readAllBytes(file);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream stream = new GZIPOutputStream(bytes) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			stream.write(content);
+		}
+		long gzip = write(gzipFile, bytes.toByteArray(), content.length);
+		long brotliSize = UNKNOWN;
+		if (brotli) {
+			brotliSize = brotli(file, brotliFile, content.length);
+		}
+		if (brotliSize == UNKNOWN) {
+			// brotli sibling, if any, is from previous content
+			Files.deleteIfExists(brotliFile);
+		}
+		manifest.setCompressed(path, gzip, brotliSize);
+		return true;
+	}
+
+	// store compressed content only if smaller than source; returns compressed size or NONE
+	private static long write(Path compressedFile, byte[] compressed, long size) throws IOException {
+		if (compressed.length >= size) {
+			Files.deleteIfExists(compressedFile);
+			return NONE;
+		}
+		Path tempFile = compressedFile.resolveSibling(compressedFile.getFileName() + ".tmp");
+		Files.write(tempFile, compressed);
+		move(tempFile, compressedFile);
+		return compressed.length;
+	}
+
+	private long brotli(Path file, Path brotliFile, long size) throws IOException {
+		Path tempFile = brotliFile.resolveSibling(brotliFile.getFileName() + ".tmp");
+		ProcessBuilder processBuilder = new ProcessBuilder(brotliPath, "-q", "11", "-f", "-o", tempFile.toString(), file.toString());
+		processBuilder.redirectErrorStream(true);
+		Process process;
+		try {
+			process = processBuilder.start();
+		} catch (IOException e) {
+			// missing tool is reported once and brotli compression disabled for current build
+			if (brotliAvailable.getAndSet(false)) {
+				warnings.add(format("Cannot start brotli tool %s: %s", brotliPath, e.getMessage()));
+			}
+			return UNKNOWN;
+		}
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (InputStream stream = process.getInputStream()) {
+			byte[] buffer = new byte[1024];
+			int length;
+			while ((length = stream.read(buffer)) != -1) {
+				output.write(buffer, 0, length);
+			}
+		}
+		int exitCode;
+		try {
+			exitCode = process.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			process.destroy();
+			throw new IOException("Brotli compression interrupted.");
+		}
+		if (exitCode != 0) {
+			Files.deleteIfExists(tempFile);
+			warnings.add(format("Brotli compression of %s failed: %s", file.getFileName(), output.toString("UTF-8").trim()));
+			return UNKNOWN;
+		}
+		if (Files.size(tempFile) >= size) {
+			Files.delete(tempFile);
+			Files.deleteIfExists(brotliFile);
+			return NONE;
+		}
+		long brotliSize = Files.size(tempFile);
+		move(tempFile, brotliFile);
+		return brotliSize;
+	}
+
+	private static void move(Path sourceFile, Path targetFile) throws IOException {
+		try {
+			Files.move(sourceFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static Path sibling(Path file, String extension) {
+		return file.resolveSibling(file.getFileName() + extension);
+	}
+}
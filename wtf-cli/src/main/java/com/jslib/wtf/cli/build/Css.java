@@ -0,0 +1,260 @@
+package com.jslib.wtf.cli.build;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+// style sheet parser producing minified rules; comments are removed and white spaces collapsed, or removed where syntax
+// allows, while strings and escapes are kept as they are
+//
+// parser is lenient, as browsers are: it does not validate rules and drops only unterminated or block-less style rules
+final class Css {
+	// at-rules with a declarations block; all others with a block contain nested rules
+	private static final Set<String> DECLARATIONS_AT_RULES = new HashSet<>(Arrays.asList("font-face", "page", "counter-style", "property", "font-palette-values", "viewport", "-ms-viewport"));
+
+	// characters around which white space is not significant, for characters before and after white space
+	private static final String SELECTORS_BEFORE = ",>+~(";
+	private static final String SELECTORS_AFTER = ",>+~)";
+	private static final String DECLARATIONS_BEFORE = ":;,(!";
+	private static final String DECLARATIONS_AFTER = ":;,)!";
+	private static final String PRELUDE_BEFORE = ",:(";
+	private static final String PRELUDE_AFTER = ",)";
+
+	private Css() {
+	}
+
+	// parse style sheet text; urls operator maps every URL from url() functions and @import strings
+	public static List<CssRule> parse(String text, UnaryOperator<String> urls) {
+		return new Parser(text, urls).rules(false);
+	}
+
+	private static class Parser {
+		private final String text;
+		private final UnaryOperator<String> urls;
+		private int position;
+
+		Parser(String text, UnaryOperator<String> urls) {
+			this.text = text;
+			this.urls = urls;
+		}
+
+		List<CssRule> rules(boolean nested) {
+			List<CssRule> rules = new ArrayList<>();
+			for (;;) {
+				skipSpaces();
+				if (position >= text.length()) {
+					return rules;
+				}
+				char c = text.charAt(position);
+				if (c == '}') {
+					++position;
+					if (nested) {
+						return rules;
+					}
+					// stray closing brace at top level is ignored
+					continue;
+				}
+				if (c == ';') {
+					++position;
+					continue;
+				}
+
+				int start = position;
+				scanPrelude();
+				boolean atRule = c == '@';
+				String prelude = text.substring(start, position);
+				if (position < text.length() && text.charAt(position) == '}') {
+					// rule without block is dropped; closing brace is processed by next iteration
+					continue;
+				}
+				if (position >= text.length() || text.charAt(position) == ';') {
+					++position;
+					if (atRule) {
+						rules.add(new CssRule(minify(prelude, PRELUDE_BEFORE, PRELUDE_AFTER, prelude.startsWith("@import")), null, null));
+					}
+					continue;
+				}
+
+				// skip block opening brace
+				++position;
+				if (!atRule) {
+					rules.add(new CssRule(minify(prelude, SELECTORS_BEFORE, SELECTORS_AFTER, false), declarations(), null));
+					continue;
+				}
+				CssRule rule = new CssRule(minify(prelude, PRELUDE_BEFORE, PRELUDE_AFTER, false), null, null);
+				if (DECLARATIONS_AT_RULES.contains(rule.getName())) {
+					rules.add(new CssRule(rule.getPrelude(), declarations(), null));
+				} else {
+					rules.add(new CssRule(rule.getPrelude(), null, rules(true)));
+				}
+			}
+		}
+
+		// minified declarations block, from current position till matching closing brace
+		private String declarations() {
+			int start = position;
+			int depth = 1;
+			while (position < text.length()) {
+				char c = text.charAt(position);
+				if (c == '{') {
+					++depth;
+				} else if (c == '}' && --depth == 0) {
+					break;
+				}
+				skipToken();
+			}
+			String declarations = minify(text.substring(start, Math.min(position, text.length())), DECLARATIONS_BEFORE, DECLARATIONS_AFTER, false);
+			++position;
+			int end = declarations.length();
+			while (end > 0 && declarations.charAt(end - 1) == ';') {
+				--end;
+			}
+			return declarations.substring(0, end);
+		}
+
+		// advance to block opening brace or statement semicolon, outside strings, comments and parentheses
+		private void scanPrelude() {
+			int depth = 0;
+			while (position < text.length()) {
+				char c = text.charAt(position);
+				if (c == '(' || c == '[') {
+					++depth;
+				} else if (c == ')' || c == ']') {
+					--depth;
+				} else if (depth <= 0 && (c == '{' || c == ';' || c == '}')) {
+					return;
+				}
+				skipToken();
+			}
+		}
+
+		private void skipSpaces() {
+			while (position < text.length()) {
+				char c = text.charAt(position);
+				if (Character.isWhitespace(c)) {
+					++position;
+				} else if (c == '/' && text.startsWith("/*", position)) {
+					skipToken();
+				} else {
+					return;
+				}
+			}
+		}
+
+		// skip a character, an escape, a string or a comment
+		private void skipToken() {
+			char c = text.charAt(position);
+			if (c == '"' || c == '\'') {
+				position = stringEnd(text, position);
+			} else if (c == '/' && text.startsWith("/*", position)) {
+				int end = text.indexOf("*/", position + 2);
+				position = end != -1 ? end + 2 : text.length();
+			} else if (c == '\\') {
+				position += 2;
+			} else {
+				++position;
+			}
+		}
+
+		private String minify(String source, String before, String after, boolean mapStrings) {
+			StringBuilder builder = new StringBuilder();
+			boolean space = false;
+			int i = 0;
+			while (i < source.length()) {
+				char c = source.charAt(i);
+				if (c == '/' && source.startsWith("/*", i)) {
+					int end = source.indexOf("*/", i + 2);
+					i = end != -1 ? end + 2 : source.length();
+					space = true;
+					continue;
+				}
+				if (Character.isWhitespace(c)) {
+					space = true;
+					++i;
+					continue;
+				}
+				if (space) {
+					if (builder.length() > 0 && before.indexOf(builder.charAt(builder.length() - 1)) == -1 && after.indexOf(c) == -1) {
+						builder.append(' ');
+					}
+					space = false;
+				}
+
+				if (c == '"' || c == '\'') {
+					int end = stringEnd(source, i);
+					if (mapStrings) {
+						builder.append(c).append(urls.apply(source.substring(i + 1, Math.max(i + 1, end - 1)))).append(c);
+					} else {
+						builder.append(source, i, end);
+					}
+					i = end;
+					continue;
+				}
+				if (c == '\\') {
+					builder.append(source, i, Math.min(i + 2, source.length()));
+					i += 2;
+					continue;
+				}
+				if ((c == 'u' || c == 'U') && source.regionMatches(true, i, "url(", 0, 4) && (i == 0 || !isNameChar(source.charAt(i - 1)))) {
+					i = url(source, i, builder);
+					continue;
+				}
+				builder.append(c);
+				++i;
+			}
+			return builder.toString();
+		}
+
+		// write url() function with mapped URL and return index after function closing parenthesis
+		private int url(String source, int start, StringBuilder builder) {
+			builder.append(source, start, start + 4);
+			int i = start + 4;
+			while (i < source.length() && Character.isWhitespace(source.charAt(i))) {
+				++i;
+			}
+			if (i < source.length() && (source.charAt(i) == '"' || source.charAt(i) == '\'')) {
+				char quote = source.charAt(i);
+				int end = stringEnd(source, i);
+				builder.append(quote).append(urls.apply(source.substring(i + 1, Math.max(i + 1, end - 1)))).append(quote);
+				i = end;
+				while (i < source.length() && source.charAt(i) != ')') {
+					++i;
+				}
+			} else {
+				int end = source.indexOf(')', i);
+				if (end == -1) {
+					end = source.length();
+				}
+				builder.append(urls.apply(source.substring(i, end).trim()));
+				i = end;
+			}
+			builder.append(')');
+			return i + 1;
+		}
+	}
+
+	// index after string closing quote; unterminated strings end at new line, as for browsers
+	private static int stringEnd(String text, int start) {
+		char quote = text.charAt(start);
+		int i = start + 1;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			++i;
+			if (c == quote || c == '\n') {
+				break;
+			}
+		}
+		return Math.min(i, text.length());
+	}
+
+	private static boolean isNameChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+	}
+}
@@ -0,0 +1,77 @@
+package com.jslib.wtf.cli.build;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+// minified style sheet rule: style rule with selectors and declarations, at-rule with declarations block, e.g.
+// @font-face, conditional at-rule with nested rules, e.g. @media, or at-rule statement, e.g. @import
+class CssRule {
+	private final String prelude;
+	private final String declarations;
+	private final List<CssRule> rules;
+
+	public CssRule(String prelude, String declarations, List<CssRule> rules) {
+		this.prelude = prelude;
+		this.declarations = declarations;
+		this.rules = rules != null ? Collections.unmodifiableList(rules) : null;
+	}
+
+	// selectors list for style rules or at-rule keyword and its parameters
+	public String getPrelude() {
+		return prelude;
+	}
+
+	public boolean isAtRule() {
+		return prelude.startsWith("@");
+	}
+
+	// lower case at-rule keyword without @ prefix, e.g. media, or null if this is a style rule
+	public String getName() {
+		if (!isAtRule()) {
+			return null;
+		}
+		int end = 1;
+		while (end < prelude.length() && (Character.isLetterOrDigit(prelude.charAt(end)) || prelude.charAt(end) == '-')) {
+			++end;
+		}
+		return prelude.substring(1, end).toLowerCase();
+	}
+
+	public String getDeclarations() {
+		return declarations;
+	}
+
+	public List<CssRule> getRules() {
+		return rules;
+	}
+
+	// write rule to style sheet; style rules with selectors not accepted by filter are skipped and so are at-rules left
+	// with no nested rules; keyframes are written as they are since their selectors are not element selectors
+	public void write(Predicate<String> selectorsFilter, StringBuilder builder) {
+		if (rules != null) {
+			String name = getName();
+			boolean keyframes = name.endsWith("keyframes");
+			int start = builder.length();
+			builder.append(prelude).append('{');
+			int rulesStart = builder.length();
+			for (CssRule rule : rules) {
+				rule.write(keyframes ? selectors -> true : selectorsFilter, builder);
+			}
+			if (builder.length() == rulesStart) {
+				builder.setLength(start);
+				return;
+			}
+			builder.append('}');
+			return;
+		}
+		if (declarations == null) {
+			builder.append(prelude).append(';');
+			return;
+		}
+		if (!isAtRule() && (declarations.isEmpty() || !selectorsFilter.test(prelude))) {
+			return;
+		}
+		builder.append(prelude).append('{').append(declarations).append('}');
+	}
+}
@@ -0,0 +1,36 @@
+package com.jslib.wtf.cli.build;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// markup element with attributes in document order; elements are not modified after parse so that the same tree can be
+// composed into many pages
+class Element extends Node {
+	private final String name;
+	private final Map<String, String> attributes;
+	private final List<Node> children;
+
+	public Element(String name, Map<String, String> attributes, List<Node> children) {
+		this.name = name;
+		this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+		this.children = Collections.unmodifiableList(children);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, String> getAttributes() {
+		return attributes;
+	}
+
+	public String getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	public List<Node> getChildren() {
+		return children;
+	}
+}
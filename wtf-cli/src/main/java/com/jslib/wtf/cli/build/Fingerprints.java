@@ -0,0 +1,38 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// project files fingerprints from file size and modification time, read once per build; contents are not hashed since
+// a stat is enough to detect an edit and costs no file read
+class Fingerprints {
+	private static final String MISSING = "-";
+
+	private final Path projectDir;
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+	public Fingerprints(Path projectDir) {
+		this.projectDir = projectDir;
+	}
+
+	public String get(String path) {
+		return fingerprints.computeIfAbsent(path, this::read);
+	}
+
+	private String read(String path) {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(projectDir.resolve(path), BasicFileAttributes.class);
+			return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+		} catch (NoSuchFileException e) {
+			return MISSING;
+		} catch (IOException e) {
+			// unreadable file is considered changed
+			return MISSING + e.getMessage();
+		}
+	}
+}
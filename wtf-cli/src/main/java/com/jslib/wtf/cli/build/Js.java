@@ -0,0 +1,187 @@
+package com.jslib.wtf.cli.build;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// conservative script minifier, in the spirit of JSMin: comments are removed and white spaces collapsed while strings,
+// template literals and regular expressions are kept as they are; line breaks are kept where automatic semicolon
+// insertion could depend on them
+//
+// there is no names mangling or code rewriting so that minified script behaves as its source
+final class Js {
+	// keywords after which a slash starts a regular expression and not a division
+	private static final Set<String> REGEXP_KEYWORDS = new HashSet<>(Arrays.asList("return", "typeof", "case", "do", "else", "in", "instanceof", "new", "delete", "void", "throw", "yield", "await", "of"));
+	private static final String REGEXP_PRECEDING = "(,=:[!&|?{};+-*%<>~^";
+	// characters that can end, respectively start, a statement; a line break between them is kept
+	private static final String STATEMENT_END = ")]}'\"`+-/";
+	private static final String STATEMENT_START = "([{'\"`+-!~/";
+
+	private Js() {
+	}
+
+	public static String minify(String source) {
+		StringBuilder builder = new StringBuilder(source.length());
+		boolean space = false;
+		boolean newLine = false;
+		int i = 0;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (c == '/' && source.startsWith("//", i)) {
+				while (i < source.length() && !isLineBreak(source.charAt(i))) {
+					++i;
+				}
+				continue;
+			}
+			if (c == '/' && source.startsWith("/*", i)) {
+				int end = source.indexOf("*/", i + 2);
+				end = end != -1 ? end + 2 : source.length();
+				for (int j = i; j < end; ++j) {
+					newLine |= isLineBreak(source.charAt(j));
+				}
+				space = true;
+				i = end;
+				continue;
+			}
+			if (Character.isWhitespace(c) || c == '\u00a0' || c == '\ufeff') {
+				space = true;
+				newLine |= isLineBreak(c);
+				++i;
+				continue;
+			}
+
+			if (space && builder.length() > 0) {
+				char last = builder.charAt(builder.length() - 1);
+				if (newLine && (isWordChar(last) || STATEMENT_END.indexOf(last) != -1) && (isWordChar(c) || STATEMENT_START.indexOf(c) != -1)) {
+					builder.append('\n');
+				} else if (isWordChar(last) && isWordChar(c) || (last == '+' || last == '-') && (c == '+' || c == '-') || last == '/' && (c == '/' || c == '*') || Character.isDigit(last) && c == '.') {
+					builder.append(' ');
+				}
+			}
+			space = false;
+			newLine = false;
+
+			int end;
+			if (c == '"' || c == '\'') {
+				end = stringEnd(source, i);
+			} else if (c == '`') {
+				end = templateEnd(source, i);
+			} else if (c == '/' && isRegExpAllowed(builder)) {
+				end = regExpEnd(source, i);
+			} else {
+				end = i + 1;
+			}
+			builder.append(source, i, end);
+			i = end;
+		}
+		return builder.toString();
+	}
+
+	private static boolean isRegExpAllowed(StringBuilder builder) {
+		if (builder.length() == 0) {
+			return true;
+		}
+		char last = builder.charAt(builder.length() - 1);
+		if (REGEXP_PRECEDING.indexOf(last) != -1 || last == '\n') {
+			return true;
+		}
+		int start = builder.length();
+		while (start > 0 && isWordChar(builder.charAt(start - 1))) {
+			--start;
+		}
+		return REGEXP_KEYWORDS.contains(builder.substring(start));
+	}
+
+	// index after regular expression flags; if there is no closing slash on the same line slash is a division operator
+	private static int regExpEnd(String source, int start) {
+		boolean characterClass = false;
+		int i = start + 1;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (isLineBreak(c)) {
+				return start + 1;
+			}
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '[') {
+				characterClass = true;
+			} else if (c == ']') {
+				characterClass = false;
+			} else if (c == '/' && !characterClass) {
+				++i;
+				while (i < source.length() && isWordChar(source.charAt(i))) {
+					++i;
+				}
+				return i;
+			}
+			++i;
+		}
+		return start + 1;
+	}
+
+	private static int stringEnd(String source, int start) {
+		char quote = source.charAt(start);
+		int i = start + 1;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			++i;
+			if (c == quote || isLineBreak(c)) {
+				break;
+			}
+		}
+		return Math.min(i, source.length());
+	}
+
+	// template literal end, with substitutions possibly containing nested strings and templates
+	private static int templateEnd(String source, int start) {
+		int i = start + 1;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '`') {
+				return i + 1;
+			}
+			if (c == '$' && source.startsWith("${", i)) {
+				i += 2;
+				int depth = 1;
+				while (i < source.length() && depth > 0) {
+					char s = source.charAt(i);
+					if (s == '"' || s == '\'') {
+						i = stringEnd(source, i);
+						continue;
+					}
+					if (s == '`') {
+						i = templateEnd(source, i);
+						continue;
+					}
+					if (s == '{') {
+						++depth;
+					} else if (s == '}') {
+						--depth;
+					}
+					++i;
+				}
+				continue;
+			}
+			++i;
+		}
+		return source.length();
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\\' || c > 126;
+	}
+
+	private static boolean isLineBreak(char c) {
+		return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+	}
+}
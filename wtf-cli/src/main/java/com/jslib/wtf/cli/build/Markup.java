@@ -0,0 +1,131 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+// component layout parser and page serializer; layouts are well formed XML with WOOD operators as w: prefixed
+// attributes, parsed without namespaces so that operators keep their qualified names
+final class Markup {
+	private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr"));
+	private static final SAXParserFactory FACTORY = SAXParserFactory.newInstance();
+
+	private Markup() {
+	}
+
+	public static Element parse(Path file) throws IOException {
+		Handler handler = new Handler();
+		try (InputStream stream = Files.newInputStream(file)) {
+			SAXParser parser;
+			synchronized (FACTORY) {
+				parser = FACTORY.newSAXParser();
+			}
+			parser.parse(stream, handler);
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException(format("Fail to parse layout %s: %s", file, e.getMessage()), e);
+		}
+		return handler.root;
+	}
+
+	public static boolean isVoid(String elementName) {
+		return VOID_ELEMENTS.contains(elementName);
+	}
+
+	public static void escapeText(String text, StringBuilder builder) {
+		for (int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '&':
+				builder.append("&amp;");
+				break;
+			case '<':
+				builder.append("&lt;");
+				break;
+			case '>':
+				builder.append("&gt;");
+				break;
+			default:
+				builder.append(c);
+			}
+		}
+	}
+
+	public static void escapeAttribute(String value, StringBuilder builder) {
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				builder.append("&amp;");
+				break;
+			case '"':
+				builder.append("&quot;");
+				break;
+			default:
+				builder.append(c);
+			}
+		}
+	}
+
+	private static class Handler extends DefaultHandler {
+		private final Deque<String> names = new ArrayDeque<>();
+		private final Deque<Map<String, String>> attributes = new ArrayDeque<>();
+		private final Deque<List<Node>> children = new ArrayDeque<>();
+		private final StringBuilder text = new StringBuilder();
+		private Element root;
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes elementAttributes) {
+			flushText();
+			Map<String, String> map = new LinkedHashMap<>();
+			for (int i = 0; i < elementAttributes.getLength(); ++i) {
+				map.put(elementAttributes.getQName(i), elementAttributes.getValue(i));
+			}
+			names.push(qName);
+			attributes.push(map);
+			children.push(new ArrayList<>());
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			flushText();
+			Element element = new Element(names.pop(), attributes.pop(), children.pop());
+			if (children.isEmpty()) {
+				root = element;
+			} else {
+				children.peek().add(element);
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			text.append(ch, start, length);
+		}
+
+		private void flushText() {
+			if (text.length() > 0 && !children.isEmpty()) {
+				children.peek().add(new Text(text.toString()));
+			}
+			text.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+// models loaded from project files, e.g. components or style sheets, shared by concurrent page builds; a model is loaded
+// once and kept, with fingerprints of the files it was loaded from, till one of these files changes
+class ModelCache<T> {
+	private final Loader<T> loader;
+	private final BiFunction<String, T, Collection<String>> files;
+
+	private final Map<String, T> models = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> snapshots = new ConcurrentHashMap<>();
+
+	public ModelCache(Loader<T> loader, BiFunction<String, T, Collection<String>> files) {
+		this.loader = loader;
+		this.files = files;
+	}
+
+	public T get(String key, Fingerprints fingerprints) throws IOException {
+		try {
+			return models.computeIfAbsent(key, k -> {
+				try {
+					T model = loader.load(k);
+					Map<String, String> snapshot = new HashMap<>();
+					files.apply(k, model).forEach(file -> snapshot.put(file, fingerprints.get(file)));
+					snapshots.put(k, snapshot);
+					return model;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public void evict(Fingerprints fingerprints) {
+		snapshots.forEach((key, snapshot) -> {
+			if (snapshot.entrySet().stream().anyMatch(entry -> !entry.getValue().equals(fingerprints.get(entry.getKey())))) {
+				models.remove(key);
+				snapshots.remove(key);
+			}
+		});
+	}
+
+	@FunctionalInterface
+	public interface Loader<T> {
+		T load(String key) throws IOException;
+	}
+}
@@ -0,0 +1,5 @@
+package com.jslib.wtf.cli.build;
+
+// markup tree node, element or text
+abstract class Node {
+}
@@ -0,0 +1,469 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// compose a page component into a standalone HTML document; page layout root with w:template operator is inserted into
+// template editable element and w:compo elements are replaced by child component layout, recursively
+//
+// @string, @param and @image references are resolved in the scope of the component that declares them; strings not
+// found into component fall back to project strings, both for composer locale
+//
+// composer collects every project file page depends on and every file page links to, namely styles, scripts and images;
+// if bundling, page styles are merged into a single style sheet and page scripts into as few scripts as execution order
+// allows, see StyleBundler and ScriptBundler
+class PageComposer {
+	private static final Pattern IMAGE_PATTERN = Pattern.compile("@image/([a-zA-Z0-9_.-]+)");
+	private static final Pattern REFERENCE_PATTERN = Pattern.compile("@(string|param|image)/([a-zA-Z0-9_.-]+)");
+	private static final String OPERATOR_PREFIX = "w:";
+	private static final String NAMESPACE_ATTRIBUTE = "xmlns:w";
+	// critical styles larger than initial TCP congestion window delay first paint anyway; page links its bundle as usual
+	private static final int CRITICAL_LIMIT = 14 * 1024;
+
+	private final Project project;
+	private final String locale;
+	private final boolean bundle;
+	private final boolean critical;
+	// prefix for build files links, from locale pages directory to build root
+	private final String base;
+
+	private final Set<String> dependencies = new LinkedHashSet<>();
+	// images with the number of references from page, excluding img sources replaced by responsive variants
+	private final Map<String, Integer> images = new LinkedHashMap<>();
+	private final Set<ResponsiveImage> responsiveImages = new LinkedHashSet<>();
+	private final List<Component> templates = new ArrayList<>();
+	private final Set<Component> components = new LinkedHashSet<>();
+	private final Set<String> warnings = new LinkedHashSet<>();
+	// element names, class names with dot prefix and ids with hash prefix used by page markup
+	private final Set<String> names = new HashSet<>(Arrays.asList("html", "head"));
+	private Component page;
+	private final List<Bundle> bundles = new ArrayList<>();
+
+	// critical styles are used only if bundling, see StyleBundler#critical
+	public PageComposer(Project project, String locale, boolean bundle, boolean critical) {
+		this.project = project;
+		this.locale = locale;
+		this.bundle = bundle;
+		this.critical = bundle && critical;
+		this.base = project.getLocaleDir(locale).isEmpty() ? "" : "../";
+	}
+
+	public String compose(Component page) throws IOException {
+		this.page = page;
+		dependencies.addAll(project.getFiles());
+		dependencies.addAll(page.getFiles());
+
+		// walk up templates chain; every layout root with w:template fills an editable from its template
+		Map<String, Fragment> editables = new HashMap<>();
+		Map<String, String> params = new HashMap<>();
+		Component component = page;
+		Element root = page.getLayout();
+		while (root.getAttribute("w:template") != null) {
+			String[] reference = root.getAttribute("w:template").split("#", 2);
+			Component template = project.getComponent(reference[0]);
+			dependencies.addAll(template.getFiles());
+			templates.add(0, template);
+			editables.put(reference.length > 1 ? reference[1] : "", new Fragment(root, component));
+			for (Map.Entry<String, String> param : params(root.getAttribute("w:param"), component, params).entrySet()) {
+				params.putIfAbsent(param.getKey(), param.getValue());
+			}
+			component = template;
+			root = template.getLayout();
+		}
+
+		StringBuilder body = new StringBuilder();
+		if (root.getName().equals("body")) {
+			write(root, component, params, editables, body);
+		} else {
+			body.append("<body>");
+			write(root, component, params, editables, body);
+			body.append("</body>");
+		}
+
+		StringBuilder document = new StringBuilder();
+		document.append("<!DOCTYPE html>\r\n");
+		document.append("<html lang=\"").append(locale).append("\">\r\n");
+		writeHead(page, document);
+		document.append(body).append("\r\n");
+		document.append("</html>");
+		return document.toString();
+	}
+
+	// project files used to create page
+	public Set<String> getDependencies() {
+		return dependencies;
+	}
+
+	// styles in cascade order: theme, templates from outermost, child components and page
+	public List<Style> getStyles() {
+		List<Style> styles = new ArrayList<>(project.getThemeStyles());
+		for (Component component : components()) {
+			styles.addAll(component.getStyles());
+		}
+		return styles;
+	}
+
+	// scripts in loading order: project head scripts followed by templates, child components and page scripts
+	public List<Script> getScripts() {
+		Set<Script> scripts = new LinkedHashSet<>();
+		for (Element element : project.getDescriptor().getHeadElements()) {
+			if (element.getName().equals("script")) {
+				scripts.add(new Script(element.getAttribute("src"), "true".equals(element.getAttribute("defer")), "true".equals(element.getAttribute("embedded"))));
+			}
+		}
+		for (Component component : components()) {
+			scripts.addAll(component.getScripts());
+		}
+		return new ArrayList<>(scripts);
+	}
+
+	// images referenced by page, relative to project
+	public Set<String> getImages() {
+		Set<String> referencedImages = new LinkedHashSet<>();
+		images.forEach((image, references) -> {
+			if (references > 0) {
+				referencedImages.add(image);
+			}
+		});
+		return referencedImages;
+	}
+
+	// asset images with variants linked by page img elements
+	public Set<ResponsiveImage> getResponsiveImages() {
+		return responsiveImages;
+	}
+
+	// page styles and scripts bundles, empty if not bundling
+	public List<Bundle> getBundles() {
+		return bundles;
+	}
+
+	public Set<String> getWarnings() {
+		return warnings;
+	}
+
+	private List<Component> components() {
+		List<Component> components = new ArrayList<>(templates);
+		components.addAll(this.components);
+		components.add(page);
+		return components;
+	}
+
+	private void writeHead(Component page, StringBuilder document) throws IOException {
+		ProjectDescriptor descriptor = project.getDescriptor();
+		document.append("<head>\r\n");
+		document.append("<meta charset=\"UTF-8\">\r\n");
+		String title = page.getTitle() != null ? page.getTitle() : descriptor.getTitle();
+		if (title != null) {
+			document.append("<title>");
+			Markup.escapeText(resolve(title, null, Collections.emptyMap()), document);
+			document.append("</title>\r\n");
+		}
+		String description = page.getDescription() != null ? page.getDescription() : descriptor.getDescription();
+		if (description != null) {
+			document.append("<meta name=\"description\" content=\"");
+			Markup.escapeAttribute(resolve(description, null, Collections.emptyMap()), document);
+			document.append("\">\r\n");
+		}
+		if (descriptor.getAuthor() != null) {
+			document.append("<meta name=\"author\" content=\"");
+			Markup.escapeAttribute(descriptor.getAuthor(), document);
+			document.append("\">\r\n");
+		}
+
+		for (Element element : descriptor.getHeadElements()) {
+			if (element.getName().equals("script")) {
+				continue;
+			}
+			// head style sheets, e.g. remote fonts, do not block first paint when page has critical styles inlined
+			if (critical && element.getName().equals("link") && "stylesheet".equals(element.getAttribute("rel"))) {
+				writeAsyncStylesheet(element, document);
+				continue;
+			}
+			write(element, null, Collections.emptyMap(), Collections.emptyMap(), document);
+			document.append("\r\n");
+		}
+		if (descriptor.getFavicon() != null) {
+			document.append("<link rel=\"icon\" href=\"").append(base).append(Project.target(descriptor.getFavicon())).append("\">\r\n");
+		}
+		if (descriptor.getManifest() != null) {
+			document.append("<link rel=\"manifest\" href=\"").append(base).append(descriptor.getManifest()).append("\">\r\n");
+		}
+
+		// bundles are named after page
+		String name = page.getPath().substring(page.getPath().lastIndexOf('/') + 1);
+		if (bundle) {
+			Bundle styleBundle = StyleBundler.bundle(project, name, getStyles(), names, getScripts());
+			bundles.add(styleBundle);
+			String criticalStyles = critical ? StyleBundler.critical(project, getStyles(), names, base) : "";
+			if (criticalStyles.isEmpty() || criticalStyles.length() > CRITICAL_LIMIT) {
+				document.append("<link rel=\"stylesheet\" href=\"").append(base).append(styleBundle.getPath()).append("\">\r\n");
+			} else {
+				// closing tag inside style strings would end the inline style element
+				document.append("<style>").append(criticalStyles.replace("</style", "<\\/style")).append("</style>\r\n");
+				Map<String, String> attributes = new LinkedHashMap<>();
+				attributes.put("rel", "stylesheet");
+				attributes.put("href", base + styleBundle.getPath());
+				writeAsyncStylesheet(new Element("link", attributes, Collections.emptyList()), document);
+			}
+		} else {
+			for (Style style : getStyles()) {
+				document.append("<link rel=\"stylesheet\" href=\"").append(base).append(Project.target(style.getSource())).append("\"");
+				if (style.getMedia() != null) {
+					document.append(" media=\"").append(style.getMedia()).append("\"");
+				}
+				document.append(">\r\n");
+			}
+		}
+
+		if (bundle) {
+			getScripts().stream().filter(Script::isLocal).forEach(script -> dependencies.add(script.getSource()));
+			bundles.addAll(ScriptBundler.bundle(project, name, getScripts(), base, document));
+			document.append("</head>\r\n");
+			return;
+		}
+		for (Script script : getScripts()) {
+			if (script.isEmbedded()) {
+				dependencies.add(script.getSource());
+				document.append("<script>\r\n");
+				document.append(new String(Files.readAllBytes(project.getProjectDir().resolve(script.getSource())), StandardCharsets.UTF_8));
+				document.append("\r\n</script>\r\n");
+				continue;
+			}
+			document.append("<script src=\"").append(script.isLocal() ? base : "").append(script.getSource()).append("\"");
+			if (script.isDefer()) {
+				document.append(" defer");
+			}
+			document.append("></script>\r\n");
+		}
+		document.append("</head>\r\n");
+	}
+
+	// style sheet requested for print media, that does not block screen rendering, and switched to its own media on load;
+	// scripts disabled fallback links style sheet as usual
+	private void writeAsyncStylesheet(Element link, StringBuilder document) throws IOException {
+		Map<String, String> attributes = attributes(link, null, Collections.emptyMap());
+		StringBuilder fallback = new StringBuilder();
+		write(link, new LinkedHashMap<>(attributes), null, Collections.emptyMap(), Collections.emptyMap(), fallback);
+
+		String media = attributes.getOrDefault("media", "all");
+		attributes.put("media", "print");
+		attributes.put("onload", "this.onload=null;this.media='" + media.replace("\\", "\\\\").replace("'", "\\'") + "'");
+		write(link, attributes, null, Collections.emptyMap(), Collections.emptyMap(), document);
+		document.append("\r\n<noscript>").append(fallback).append("</noscript>\r\n");
+	}
+
+	private void write(Element element, Component scope, Map<String, String> params, Map<String, Fragment> editables, StringBuilder builder) throws IOException {
+		String editable = element.getAttribute("w:editable");
+		if (editable != null && editables.containsKey(editable)) {
+			Fragment fragment = editables.get(editable);
+			write(fragment.element, fragment.scope, params, editables, builder);
+			return;
+		}
+
+		String compoPath = element.getAttribute("w:compo");
+		if (compoPath != null) {
+			Component compo = project.getComponent(compoPath);
+			dependencies.addAll(compo.getFiles());
+			components.add(compo);
+			Map<String, String> compoParams = params(element.getAttribute("w:param"), scope, params);
+			Element compoRoot = compo.getLayout();
+			// compo root element gets attributes from referencing element, class names merged
+			Map<String, String> attributes = attributes(compoRoot, compo, compoParams);
+			attributes(element, scope, params).forEach((name, value) -> {
+				attributes.merge(name, value, (value1, value2) -> name.equals("class") ? value1 + " " + value2 : value2);
+			});
+			write(compoRoot, attributes, compo, compoParams, Collections.emptyMap(), builder);
+			return;
+		}
+
+		write(element, attributes(element, scope, params), scope, params, editables, builder);
+	}
+
+	private void write(Element element, Map<String, String> attributes, Component scope, Map<String, String> params, Map<String, Fragment> editables, StringBuilder builder) throws IOException {
+		names.add(element.getName().toLowerCase());
+		if (element.getName().equals("img")) {
+			responsive(element.getAttribute("src"), attributes, scope);
+		}
+		if (attributes.containsKey("class")) {
+			for (String className : attributes.get("class").trim().split("\\s+")) {
+				names.add("." + className);
+			}
+		}
+		if (attributes.containsKey("id")) {
+			names.add("#" + attributes.get("id"));
+		}
+
+		builder.append('<').append(element.getName());
+		attributes.forEach((name, value) -> {
+			builder.append(' ').append(name).append("=\"");
+			Markup.escapeAttribute(value, builder);
+			builder.append('"');
+		});
+		builder.append('>');
+		if (Markup.isVoid(element.getName())) {
+			return;
+		}
+
+		for (Node child : element.getChildren()) {
+			if (child instanceof Text) {
+				String text = resolve(((Text) child).getValue(), scope, params);
+				if (element.getName().equals("script") || element.getName().equals("style")) {
+					builder.append(text);
+				} else {
+					Markup.escapeText(text, builder);
+				}
+				continue;
+			}
+			write((Element) child, scope, params, editables, builder);
+		}
+		builder.append("</").append(element.getName()).append('>');
+	}
+
+	// img element with an asset image links image variants, see ResponsiveImage; source is image at its own width while
+	// variants narrowed to media queries breakpoints are listed by srcset, with default sizes unless element has its own
+	private void responsive(String src, Map<String, String> attributes, Component scope) throws IOException {
+		if (src == null || attributes.containsKey("srcset")) {
+			return;
+		}
+		Matcher matcher = IMAGE_PATTERN.matcher(src.trim());
+		if (!matcher.matches()) {
+			return;
+		}
+		String source = project.getImage(matcher.group(1), scope);
+		if (source == null || !ResponsiveImage.isResponsive(source)) {
+			return;
+		}
+		ResponsiveImage image = project.getResponsiveImage(source);
+		List<ResponsiveImage.Variant> variants = image.getVariants();
+		if (variants.isEmpty()) {
+			return;
+		}
+		responsiveImages.add(image);
+		// source reference was counted when attributes were resolved; image is linked only through its variants
+		images.merge(source, -1, Integer::sum);
+		attributes.put("src", base + variants.get(variants.size() - 1).getPath());
+		if (variants.size() > 1) {
+			StringBuilder srcset = new StringBuilder();
+			for (ResponsiveImage.Variant variant : variants) {
+				if (srcset.length() > 0) {
+					srcset.append(", ");
+				}
+				srcset.append(base).append(variant.getPath()).append(' ').append(variant.getWidth()).append('w');
+			}
+			attributes.put("srcset", srcset.toString());
+			attributes.putIfAbsent("sizes", image.getSizes());
+		}
+	}
+
+	// element attributes with references resolved, WOOD operators and namespace declaration removed
+	private Map<String, String> attributes(Element element, Component scope, Map<String, String> params) {
+		Map<String, String> attributes = new LinkedHashMap<>();
+		element.getAttributes().forEach((name, value) -> {
+			if (!name.startsWith(OPERATOR_PREFIX) && !name.equals(NAMESPACE_ATTRIBUTE)) {
+				attributes.put(name, resolve(value, scope, params));
+			}
+		});
+		return attributes;
+	}
+
+	// w:param operator value is a semicolon separated list of name:value pairs
+	private Map<String, String> params(String value, Component scope, Map<String, String> outerParams) {
+		Map<String, String> params = new HashMap<>();
+		if (value == null) {
+			return params;
+		}
+		for (String param : value.split(";")) {
+			int separator = param.indexOf(':');
+			if (separator == -1) {
+				warnings.add(format("Invalid parameter %s.", param));
+				continue;
+			}
+			params.put(param.substring(0, separator).trim(), resolve(param.substring(separator + 1).trim(), scope, outerParams));
+		}
+		return params;
+	}
+
+	// resolve references from a project file, e.g. web application manifest, in project scope
+	public String resolve(String text) {
+		return resolve(text, null, Collections.emptyMap());
+	}
+
+	// locale strings override default strings, even from a wider scope; for the same kind, component strings override
+	// project strings
+	private String string(String name, Component scope) {
+		String value = scope != null ? scope.getStrings(locale).get(name) : null;
+		if (value == null) {
+			value = project.getStrings(locale).get(name);
+		}
+		if (value == null && scope != null) {
+			value = scope.getDefaultStrings().get(name);
+		}
+		if (value == null) {
+			value = project.getDefaultStrings().get(name);
+		}
+		return value;
+	}
+
+	private String resolve(String text, Component scope, Map<String, String> params) {
+		if (text.indexOf('@') == -1) {
+			return text;
+		}
+		Matcher matcher = REFERENCE_PATTERN.matcher(text);
+		StringBuffer buffer = new StringBuffer();
+		while (matcher.find()) {
+			String value = null;
+			String name = matcher.group(2);
+			switch (matcher.group(1)) {
+			case "string":
+				value = string(name, scope);
+				break;
+
+			case "param":
+				value = params.get(name);
+				break;
+
+			case "image":
+				String image = project.getImage(name, scope);
+				if (image != null) {
+					dependencies.add(image);
+					images.merge(image, 1, Integer::sum);
+					value = base + Project.target(image);
+				}
+				break;
+			}
+			if (value == null) {
+				warnings.add(format("Unresolved reference %s in %s.", matcher.group(), scope != null ? scope.getPath() : Project.DESCRIPTOR_FILE));
+				value = matcher.group();
+			}
+			matcher.appendReplacement(buffer, Matcher.quoteReplacement(value));
+		}
+		matcher.appendTail(buffer);
+		return buffer.toString();
+	}
+
+	private static class Fragment {
+		final Element element;
+		final Component scope;
+
+		Fragment(Element element, Component scope) {
+			this.element = element;
+			this.scope = scope;
+		}
+	}
+}
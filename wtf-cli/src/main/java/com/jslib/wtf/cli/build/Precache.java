@@ -0,0 +1,60 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// precache manifest for service worker: build files, relative to build root, with content revisions; service worker
+// script declares where manifest is injected with a placeholder, e.g. var precache = self.__PRECACHE_MANIFEST;
+//
+// revision is content hash so that a service worker caching files by revision fetches again only changed files; also,
+// any changed build file changes service worker script and browser installs the new one
+final class Precache {
+	public static final String PLACEHOLDER = "self.__PRECACHE_MANIFEST";
+	private static final int REVISION_LENGTH = 10;
+
+	private Precache() {
+	}
+
+	public static boolean isPrecache(String script) {
+		return script.contains(PLACEHOLDER);
+	}
+
+	// replace manifest placeholder from service worker script with manifest for given build files
+	public static String inject(String script, Collection<String> files, BuildManifest buildManifest) throws IOException {
+		return script.replace(PLACEHOLDER, manifest(files, buildManifest));
+	}
+
+	// manifest is a JSON array of url and revision objects, sorted by url, with an object per line; revisions are build
+	// manifest content hashes, computed here in parallel and reused by compressor
+	public static String manifest(Collection<String> files, BuildManifest buildManifest) throws IOException {
+		Map<String, String> revisions = new ConcurrentHashMap<>();
+		try {
+			files.parallelStream().forEach(file -> {
+				try {
+					String hash = buildManifest.hash(file);
+					if (hash != null) {
+						revisions.put(file, hash.substring(0, REVISION_LENGTH));
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		List<String> entries = new ArrayList<>();
+		new TreeMap<>(revisions).forEach((file, revision) -> {
+			entries.add(format("{\"url\": \"%s\", \"revision\": \"%s\"}", file.replace("\\", "\\\\").replace("\"", "\\\""), revision));
+		});
+		return "[\n" + String.join(",\n", entries) + "\n]";
+	}
+}
@@ -0,0 +1,219 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// project files shared by all pages of a build: project descriptor, asset and libraries strings, theme styles and loaded models, that
+// is, components, style sheets, scripts, script names and responsive images; every model is loaded once, no matter how many pages use it,
+// and is shared by concurrent page builds
+//
+// project instance is reused by next builds from the same JVM while project wide files are unchanged; loaded models are
+// evicted when their files change
+class Project {
+	public static final String DESCRIPTOR_FILE = "project.xml";
+	public static final String ASSET_DIR = "res/asset";
+	public static final String THEME_DIR = "res/theme";
+	public static final String PAGES_DIR = "res/page";
+
+	private static final String LIB_DIR = "lib";
+	private static final String[] IMAGE_EXTENSIONS = { "png", "jpg", "jpeg", "gif", "svg", "webp", "ico" };
+	// theme reset and variables are loaded before any other theme style
+	private static final List<String> THEME_FIRST = Arrays.asList("reset.css", "var.css");
+
+	private final Path projectDir;
+	private final ProjectDescriptor descriptor;
+	private final Map<String, Map<String, String>> strings;
+	private final Map<String, String> defaultStrings;
+	private final List<Style> themeStyles;
+	private final List<String> files;
+	private final Map<String, String> filesFingerprints = new HashMap<>();
+	private final ModelCache<Component> components;
+	private final ModelCache<Stylesheet> stylesheets;
+	private final ModelCache<Set<String>> scriptNames;
+	private final ModelCache<String> scripts;
+	private final ModelCache<ResponsiveImage> images;
+	private volatile Fingerprints fingerprints;
+
+	public Project(Path projectDir, Fingerprints fingerprints) throws IOException {
+		this.projectDir = projectDir;
+		this.fingerprints = fingerprints;
+		this.descriptor = new ProjectDescriptor(projectDir.resolve(DESCRIPTOR_FILE));
+		this.components = new ModelCache<>(path -> new Component(projectDir, path, descriptor.getMediaQueries()), (path, component) -> component.getFiles());
+		this.stylesheets = new ModelCache<>(source -> new Stylesheet(projectDir, source), (source, stylesheet) -> Collections.singletonList(source));
+		this.scriptNames = new ModelCache<>(source -> Script.names(projectDir, source), (source, names) -> Collections.singletonList(source));
+		this.scripts = new ModelCache<>(source -> Js.minify(new String(Files.readAllBytes(projectDir.resolve(source)), StandardCharsets.UTF_8)), (source, script) -> Collections.singletonList(source));
+		this.images = new ModelCache<>(source -> new ResponsiveImage(projectDir, source, descriptor.getBreakpoints()), (source, image) -> Collections.singletonList(source));
+
+		List<String> files = new ArrayList<>();
+		files.add(DESCRIPTOR_FILE);
+		// asset, libraries and theme directories are dependencies so that adding strings or theme files is detected; they
+		// are dependencies even if missing, with missing file fingerprint, so that creating them is detected as well
+		files.add(ASSET_DIR);
+		StringTable assetStrings = new StringTable(projectDir, ASSET_DIR);
+		files.addAll(assetStrings.getFiles());
+		files.add(LIB_DIR);
+		List<StringTable> libStrings = new ArrayList<>();
+		for (String libDir : libDirs(projectDir)) {
+			files.add(libDir);
+			StringTable strings = new StringTable(projectDir, libDir);
+			files.addAll(strings.getFiles());
+			libStrings.add(strings);
+		}
+		// project strings override libraries strings; locale and default strings are kept apart, see PageComposer
+		Map<String, Map<String, String>> strings = new HashMap<>();
+		for (String locale : descriptor.getLocales()) {
+			Map<String, String> localeStrings = new HashMap<>();
+			libStrings.forEach(table -> localeStrings.putAll(table.getLocale(locale)));
+			localeStrings.putAll(assetStrings.getLocale(locale));
+			strings.put(locale, Collections.unmodifiableMap(localeStrings));
+		}
+		this.strings = strings;
+		Map<String, String> defaultStrings = new HashMap<>();
+		libStrings.forEach(table -> defaultStrings.putAll(table.getDefaults()));
+		defaultStrings.putAll(assetStrings.getDefaults());
+		this.defaultStrings = Collections.unmodifiableMap(defaultStrings);
+
+		List<String> themeFiles = new ArrayList<>();
+		Path themeDir = projectDir.resolve(THEME_DIR);
+		files.add(THEME_DIR);
+		if (Files.isDirectory(themeDir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(themeDir, "*.css")) {
+				stream.forEach(file -> themeFiles.add(file.getFileName().toString()));
+			}
+		}
+		themeFiles.sort((name1, name2) -> {
+			int index1 = THEME_FIRST.indexOf(name1);
+			int index2 = THEME_FIRST.indexOf(name2);
+			if (index1 != index2) {
+				return (index1 == -1 ? Integer.MAX_VALUE : index1) - (index2 == -1 ? Integer.MAX_VALUE : index2);
+			}
+			return name1.compareTo(name2);
+		});
+		List<Style> themeStyles = new ArrayList<>();
+		for (String themeFile : themeFiles) {
+			themeStyles.add(Style.of(THEME_DIR + "/" + themeFile, descriptor.getMediaQueries()));
+			files.add(THEME_DIR + "/" + themeFile);
+		}
+		this.themeStyles = Collections.unmodifiableList(themeStyles);
+		this.files = Collections.unmodifiableList(files);
+		files.forEach(file -> filesFingerprints.put(file, fingerprints.get(file)));
+	}
+
+	public boolean isStale(Fingerprints fingerprints) {
+		return filesFingerprints.entrySet().stream().anyMatch(entry -> !entry.getValue().equals(fingerprints.get(entry.getKey())));
+	}
+
+	// prepare this project instance for a new build, evicting models with changed files
+	public void refresh(Fingerprints fingerprints) {
+		this.fingerprints = fingerprints;
+		components.evict(fingerprints);
+		stylesheets.evict(fingerprints);
+		scriptNames.evict(fingerprints);
+		scripts.evict(fingerprints);
+		images.evict(fingerprints);
+	}
+
+	public Path getProjectDir() {
+		return projectDir;
+	}
+
+	public ProjectDescriptor getDescriptor() {
+		return descriptor;
+	}
+
+	// project wide strings for locale, without default strings, from project assets and libraries; every project locale
+	// is compiled on project load
+	public Map<String, String> getStrings(String locale) {
+		Map<String, String> localeStrings = strings.get(locale);
+		return localeStrings != null ? localeStrings : Collections.emptyMap();
+	}
+
+	public Map<String, String> getDefaultStrings() {
+		return defaultStrings;
+	}
+
+	public List<Style> getThemeStyles() {
+		return themeStyles;
+	}
+
+	// project wide files every page depends on
+	public List<String> getFiles() {
+		return files;
+	}
+
+	public Component getComponent(String path) throws IOException {
+		return components.get(path, fingerprints);
+	}
+
+	public Stylesheet getStylesheet(String source) throws IOException {
+		return stylesheets.get(source, fingerprints);
+	}
+
+	// names used by script, see Script#names
+	public Set<String> getScriptNames(String source) throws IOException {
+		return scriptNames.get(source, fingerprints);
+	}
+
+	// minified script source
+	public String getScript(String source) throws IOException {
+		return scripts.get(source, fingerprints);
+	}
+
+	// asset image with responsive variants, see ResponsiveImage
+	public ResponsiveImage getResponsiveImage(String source) throws IOException {
+		return images.get(source, fingerprints);
+	}
+
+	// image file, relative to project, searched by name into component directory then into project assets; returns null
+	// if not found
+	public String getImage(String name, Component scope) {
+		List<String> dirs = new ArrayList<>();
+		if (scope != null) {
+			dirs.add(scope.getPath());
+		}
+		dirs.add(ASSET_DIR);
+		for (String dir : dirs) {
+			for (String extension : IMAGE_EXTENSIONS) {
+				String image = dir + "/" + name + "." + extension;
+				if (Files.exists(projectDir.resolve(image))) {
+					return image;
+				}
+			}
+		}
+		return null;
+	}
+
+	// build directory for locale pages, relative to build root: default locale pages are stored into build root and other
+	// locales into directories named after locale
+	public String getLocaleDir(String locale) {
+		return locale.equals(descriptor.getLocales().get(0)) ? "" : locale + "/";
+	}
+
+	private static List<String> libDirs(Path projectDir) throws IOException {
+		List<String> libDirs = new ArrayList<>();
+		Path dir = projectDir.resolve(LIB_DIR);
+		if (Files.isDirectory(dir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
+				stream.forEach(libDir -> libDirs.add(LIB_DIR + "/" + libDir.getFileName()));
+			}
+		}
+		Collections.sort(libDirs);
+		return libDirs;
+	}
+
+	// build target path, relative to build directory, for a project file; resources directory prefix is discarded and
+	// everything else keeps project layout
+	public static String target(String source) {
+		return source.startsWith("res/") ? source.substring("res/".length()) : source;
+	}
+}
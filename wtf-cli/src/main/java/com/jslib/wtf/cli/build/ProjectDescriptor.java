@@ -0,0 +1,165 @@
+package com.jslib.wtf.cli.build;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+// project.xml with project wide properties, media query aliases used by style files suffixes and the elements included
+// into every page head
+class ProjectDescriptor {
+	private static final Pattern BREAKPOINT_PATTERN = Pattern.compile("(?:min|max)-width\\s*:\\s*(\\d+)px");
+
+	private final String author;
+	private final String title;
+	private final String description;
+	private final String manifest;
+	private final String serviceWorker;
+	private final String favicon;
+	private final List<String> locales;
+	private final Map<String, String> mediaQueries;
+	private final List<Integer> breakpoints;
+	private final List<Element> headElements;
+
+	public ProjectDescriptor(Path file) throws IOException {
+		Document document;
+		try {
+			document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file.toFile());
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException(format("Fail to parse project descriptor %s: %s", file, e.getMessage()), e);
+		}
+		org.w3c.dom.Element root = document.getDocumentElement();
+
+		this.author = text(root, "author");
+		this.title = text(root, "title");
+		this.description = text(root, "description");
+		this.manifest = text(root, "manifest");
+		this.serviceWorker = text(root, "service-worker");
+		this.favicon = text(root, "favicon");
+
+		List<String> locales = new ArrayList<>();
+		String locale = text(root, "locale");
+		for (String item : (locale != null ? locale : "en").split(",")) {
+			if (!item.trim().isEmpty()) {
+				locales.add(item.trim());
+			}
+		}
+		this.locales = Collections.unmodifiableList(locales);
+
+		Map<String, String> mediaQueries = new LinkedHashMap<>();
+		NodeList nodes = root.getElementsByTagName("media-query");
+		for (int i = 0; i < nodes.getLength(); ++i) {
+			org.w3c.dom.Element mediaQuery = (org.w3c.dom.Element) nodes.item(i);
+			mediaQueries.put(mediaQuery.getAttribute("alias"), mediaQuery.getAttribute("expression"));
+		}
+		this.mediaQueries = Collections.unmodifiableMap(mediaQueries);
+
+		Set<Integer> breakpoints = new TreeSet<>();
+		for (String expression : mediaQueries.values()) {
+			Matcher matcher = BREAKPOINT_PATTERN.matcher(expression);
+			while (matcher.find()) {
+				breakpoints.add(Integer.parseInt(matcher.group(1)));
+			}
+		}
+		this.breakpoints = Collections.unmodifiableList(new ArrayList<>(breakpoints));
+
+		List<Element> headElements = new ArrayList<>();
+		nodes = root.getElementsByTagName("head");
+		if (nodes.getLength() > 0) {
+			NodeList children = nodes.item(0).getChildNodes();
+			for (int i = 0; i < children.getLength(); ++i) {
+				if (children.item(i) instanceof org.w3c.dom.Element) {
+					headElements.add(element((org.w3c.dom.Element) children.item(i)));
+				}
+			}
+		}
+		this.headElements = Collections.unmodifiableList(headElements);
+	}
+
+	public String getAuthor() {
+		return author;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getManifest() {
+		return manifest;
+	}
+
+	public String getServiceWorker() {
+		return serviceWorker;
+	}
+
+	public String getFavicon() {
+		return favicon;
+	}
+
+	public List<String> getLocales() {
+		return locales;
+	}
+
+	public Map<String, String> getMediaQueries() {
+		return mediaQueries;
+	}
+
+	// viewport widths, in pixels and ascending order, from media queries width conditions
+	public List<Integer> getBreakpoints() {
+		return breakpoints;
+	}
+
+	public List<Element> getHeadElements() {
+		return headElements;
+	}
+
+	private static String text(org.w3c.dom.Element root, String tagName) {
+		NodeList nodes = root.getElementsByTagName(tagName);
+		if (nodes.getLength() == 0) {
+			return null;
+		}
+		String text = nodes.item(0).getTextContent().trim();
+		return text.isEmpty() ? null : text;
+	}
+
+	// head elements are converted to layout markup model so that page serializer handles all elements the same way
+	private static Element element(org.w3c.dom.Element domElement) {
+		Map<String, String> attributes = new LinkedHashMap<>();
+		NamedNodeMap domAttributes = domElement.getAttributes();
+		for (int i = 0; i < domAttributes.getLength(); ++i) {
+			attributes.put(domAttributes.item(i).getNodeName(), domAttributes.item(i).getNodeValue());
+		}
+		List<Node> children = new ArrayList<>();
+		NodeList domChildren = domElement.getChildNodes();
+		for (int i = 0; i < domChildren.getLength(); ++i) {
+			org.w3c.dom.Node domChild = domChildren.item(i);
+			if (domChild instanceof org.w3c.dom.Element) {
+				children.add(element((org.w3c.dom.Element) domChild));
+			} else if (domChild.getNodeType() == org.w3c.dom.Node.TEXT_NODE && !domChild.getNodeValue().trim().isEmpty()) {
+				children.add(new Text(domChild.getNodeValue()));
+			}
+		}
+		return new Element(domElement.getTagName(), attributes, children);
+	}
+}
@@ -0,0 +1,202 @@
+package com.jslib.wtf.cli.build;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.jslib.wtf.cli.Hash;
+
+// raster image from project assets with width variants for responsive img elements: image at its own width and scaled
+// down to every media query breakpoint narrower than image; variants are named after source content hash, e.g.
+// asset/photo.1847171a2c.560.jpg, so that an existing variant is up to date with its source
+//
+// PNG image at its own width is re-encoded and kept if smaller than source; JPEG is kept as it is since re-encoding is
+// lossy; scaled down variants are encoded in source format
+class ResponsiveImage {
+	private static final int HASH_LENGTH = 10;
+	private static final float JPEG_QUALITY = 0.85F;
+
+	private final Path projectDir;
+	private final String source;
+	private final String format;
+	private final List<Variant> variants;
+	private final String sizes;
+
+	public ResponsiveImage(Path projectDir, String source, List<Integer> breakpoints) throws IOException {
+		this.projectDir = projectDir;
+		this.source = source;
+		this.format = isPng(source) ? "png" : "jpg";
+
+		byte[] content = Files.readAllBytes(projectDir.resolve(source));
+		// image not supported by image I/O, e.g. CMYK JPEG, has no variants and is linked as it is
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+		if (image == null) {
+			this.variants = Collections.emptyList();
+			this.sizes = null;
+			return;
+		}
+
+		String target = Project.target(source);
+		String prefix = target.substring(0, target.lastIndexOf('.')) + "." + Hash.sha256Hex(content).substring(0, HASH_LENGTH) + ".";
+		String extension = target.substring(target.lastIndexOf('.'));
+		int width = image.getWidth();
+
+		List<Variant> variants = new ArrayList<>();
+		for (int breakpoint : breakpoints) {
+			if (breakpoint < width) {
+				variants.add(new Variant(prefix + breakpoint + extension, breakpoint));
+			}
+		}
+		variants.add(new Variant(prefix + width + extension, width));
+		this.variants = Collections.unmodifiableList(variants);
+		// image is assumed fluid, as wide as viewport but not wider than itself
+		this.sizes = "(max-width: " + width + "px) 100vw, " + width + "px";
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	// variants in ascending width order, last one with image own width; empty if image is not supported
+	public List<Variant> getVariants() {
+		return variants;
+	}
+
+	// value for img sizes attribute
+	public String getSizes() {
+		return sizes;
+	}
+
+	// write missing variants into build directory; variants are encoded in parallel
+	public void write(Path targetDir) throws IOException {
+		List<Variant> missingVariants = new ArrayList<>();
+		for (Variant variant : variants) {
+			if (!Files.exists(targetDir.resolve(variant.getPath()))) {
+				missingVariants.add(variant);
+			}
+		}
+		if (missingVariants.isEmpty()) {
+			return;
+		}
+
+		byte[] content = Files.readAllBytes(projectDir.resolve(source));
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+		try {
+			missingVariants.parallelStream().forEach(variant -> {
+				try {
+					byte[] bytes = content;
+					if (variant.getWidth() < image.getWidth()) {
+						bytes = encode(scale(image, variant.getWidth()));
+					} else if (format.equals("png")) {
+						byte[] encoded = encode(image);
+						if (encoded.length < content.length) {
+							bytes = encoded;
+						}
+					}
+					Path file = targetDir.resolve(variant.getPath());
+					Files.createDirectories(file.getParent());
+					Files.write(file, bytes);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private byte[] encode(BufferedImage image) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (format.equals("png")) {
+			ImageIO.write(image, "png", bytes);
+			return bytes.toByteArray();
+		}
+
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+		if (!writers.hasNext()) {
+			throw new IOException("Missing JPEG image writer.");
+		}
+		ImageWriter writer = writers.next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(bytes)) {
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+
+	// scale down in steps of at most a half, so that bilinear interpolation does not skip source pixels
+	private BufferedImage scale(BufferedImage image, int width) {
+		int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+		// JPEG has no alpha channel
+		int type = format.equals("png") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		BufferedImage scaled = image;
+		int stepWidth = image.getWidth();
+		int stepHeight = image.getHeight();
+		do {
+			stepWidth = Math.max(width, stepWidth / 2);
+			stepHeight = Math.max(height, stepHeight / 2);
+			BufferedImage step = new BufferedImage(stepWidth, stepHeight, type);
+			Graphics2D graphics = step.createGraphics();
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(scaled, 0, 0, stepWidth, stepHeight, null);
+			graphics.dispose();
+			scaled = step;
+		} while (stepWidth != width || stepHeight != height);
+		return scaled;
+	}
+
+	// only PNG and JPEG asset images get variants
+	public static boolean isResponsive(String source) {
+		return source.startsWith(Project.ASSET_DIR + "/") && (isPng(source) || isJpeg(source));
+	}
+
+	private static boolean isPng(String source) {
+		return source.toLowerCase().endsWith(".png");
+	}
+
+	private static boolean isJpeg(String source) {
+		String name = source.toLowerCase();
+		return name.endsWith(".jpg") || name.endsWith(".jpeg");
+	}
+
+	public static class Variant {
+		private final String path;
+		private final int width;
+
+		Variant(String path, int width) {
+			this.path = path;
+			this.width = width;
+		}
+
+		// variant path relative to build directory
+		public String getPath() {
+			return path;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// script declared by project head or by component descriptor; source is relative to project directory
+class Script {
+	private static final Pattern NAME_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_-]*");
+
+	private final String source;
+	private final boolean defer;
+	private final boolean embedded;
+
+	public Script(String source, boolean defer, boolean embedded) {
+		this.source = source;
+		this.defer = defer;
+		this.embedded = embedded;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public boolean isDefer() {
+		return defer;
+	}
+
+	public boolean isEmbedded() {
+		return embedded;
+	}
+
+	// script stored into project, as opposed to scripts loaded from absolute URL
+	public boolean isLocal() {
+		return isLocal(source);
+	}
+
+	private static boolean isLocal(String source) {
+		return !source.contains(":") && !source.startsWith("//");
+	}
+
+	// identifier like words from script source; script may add class names or create elements at runtime so style rules
+	// using these names are not unused even if page markup does not contain them
+	//
+	// returns empty set for scripts not stored into project, e.g. loaded from absolute URL
+	public static Set<String> names(Path projectDir, String source) throws IOException {
+		Path file = projectDir.resolve(source);
+		if (!isLocal(source) || !Files.isRegularFile(file)) {
+			return Collections.emptySet();
+		}
+		Set<String> names = new HashSet<>();
+		Matcher matcher = NAME_PATTERN.matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		while (matcher.find()) {
+			names.add(matcher.group());
+		}
+		return Collections.unmodifiableSet(names);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Script && source.equals(((Script) obj).source);
+	}
+
+	@Override
+	public int hashCode() {
+		return source.hashCode();
+	}
+}
@@ -0,0 +1,93 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// merge page scripts into minified bundles and write script elements for them; execution order is preserved: scripts
+// are bundled only with adjacent scripts of the same kind, blocking or deferred, while embedded scripts are inlined and
+// scripts not stored into project are linked as they are, both interrupting bundles
+//
+// blocking scripts run where declared, followed by deferred scripts, in declaration order, after document parsing; this
+// is also the order of script elements written by bundler
+//
+// a strict mode directive applies to the whole bundle so a script starting with one is bundled alone
+final class ScriptBundler {
+	private ScriptBundler() {
+	}
+
+	// base is the prefix for links from page to build root
+	public static List<Bundle> bundle(Project project, String name, List<Script> scripts, String base, StringBuilder document) throws IOException {
+		List<Bundle> bundles = new ArrayList<>();
+		List<Script> deferred = new ArrayList<>();
+		List<Script> run = new ArrayList<>();
+		for (Script script : scripts) {
+			if (script.isDefer() && !script.isEmbedded()) {
+				deferred.add(script);
+				continue;
+			}
+			if (script.isEmbedded()) {
+				write(project, name, run, false, base, bundles, document);
+				document.append("<script>");
+				// closing tag inside script strings would end the inline script element
+				document.append(project.getScript(script.getSource()).replace("</script", "<\\/script"));
+				document.append("</script>\r\n");
+				continue;
+			}
+			append(project, name, script, run, false, base, bundles, document);
+		}
+		write(project, name, run, false, base, bundles, document);
+
+		for (Script script : deferred) {
+			append(project, name, script, run, true, base, bundles, document);
+		}
+		write(project, name, run, true, base, bundles, document);
+		return bundles;
+	}
+
+	private static void append(Project project, String name, Script script, List<Script> run, boolean defer, String base, List<Bundle> bundles, StringBuilder document) throws IOException {
+		if (!script.isLocal()) {
+			write(project, name, run, defer, base, bundles, document);
+			writeElement(script.getSource(), defer, document);
+			return;
+		}
+		if (isStrict(project.getScript(script.getSource()))) {
+			write(project, name, run, defer, base, bundles, document);
+			run.add(script);
+			write(project, name, run, defer, base, bundles, document);
+			return;
+		}
+		run.add(script);
+	}
+
+	// write bundle for scripts run, if any, and clear the run
+	private static void write(Project project, String name, List<Script> run, boolean defer, String base, List<Bundle> bundles, StringBuilder document) throws IOException {
+		if (run.isEmpty()) {
+			return;
+		}
+		StringBuilder content = new StringBuilder();
+		for (Script script : run) {
+			if (content.length() > 0) {
+				// a script not ending with semicolon could otherwise continue into the next one
+				content.append(";\n");
+			}
+			content.append(project.getScript(script.getSource()));
+		}
+		Bundle bundle = new Bundle(name, "js", content.toString());
+		bundles.add(bundle);
+		writeElement(base + bundle.getPath(), defer, document);
+		run.clear();
+	}
+
+	private static void writeElement(String source, boolean defer, StringBuilder document) {
+		document.append("<script src=\"").append(source).append("\"");
+		if (defer) {
+			document.append(" defer");
+		}
+		document.append("></script>\r\n");
+	}
+
+	private static boolean isStrict(String script) {
+		return script.startsWith("\"use strict\"") || script.startsWith("'use strict'");
+	}
+}
@@ -0,0 +1,70 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// string resources from a directory: default strings file and locale variants, e.g. string.xml and string_ro.xml; both
+// string and strings base names are accepted
+//
+// locale strings and default strings are kept apart so that a lookup can try locale strings from every scope before
+// falling back to default strings; all strings files are loaded once, at table creation
+class StringTable {
+	private static final Pattern FILE_PATTERN = Pattern.compile("strings?(?:_([a-zA-Z0-9-]+))?\\.xml");
+	private static final String DEFAULT_LOCALE = "";
+
+	private final Map<String, Map<String, String>> locales;
+	private final List<String> files;
+
+	public StringTable(Path projectDir, String path) throws IOException {
+		// sorted so that strings file overrides string file and default strings are loaded first
+		Map<String, String> stringsFiles = new TreeMap<>();
+		Path dir = projectDir.resolve(path);
+		if (Files.isDirectory(dir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "string*.xml")) {
+				stream.forEach(file -> stringsFiles.put(file.getFileName().toString(), path + "/" + file.getFileName()));
+			}
+		}
+
+		Map<String, Map<String, String>> strings = new HashMap<>();
+		List<String> files = new ArrayList<>();
+		for (Map.Entry<String, String> stringsFile : stringsFiles.entrySet()) {
+			Matcher matcher = FILE_PATTERN.matcher(stringsFile.getKey());
+			if (!matcher.matches()) {
+				continue;
+			}
+			String locale = matcher.group(1) != null ? matcher.group(1) : DEFAULT_LOCALE;
+			strings.computeIfAbsent(locale, key -> new HashMap<>()).putAll(Component.strings(projectDir.resolve(stringsFile.getValue())));
+			files.add(stringsFile.getValue());
+		}
+
+		Map<String, Map<String, String>> locales = new HashMap<>();
+		strings.forEach((locale, localeStrings) -> locales.put(locale, Collections.unmodifiableMap(localeStrings)));
+		this.locales = locales;
+		this.files = Collections.unmodifiableList(files);
+	}
+
+	// strings for locale only, without default strings; empty if there is no strings file for locale
+	public Map<String, String> getLocale(String locale) {
+		Map<String, String> strings = locales.get(locale);
+		return strings != null ? strings : Collections.emptyMap();
+	}
+
+	public Map<String, String> getDefaults() {
+		return getLocale(DEFAULT_LOCALE);
+	}
+
+	// strings files, relative to project
+	public List<String> getFiles() {
+		return files;
+	}
+}
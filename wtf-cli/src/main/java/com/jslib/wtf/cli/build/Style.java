@@ -0,0 +1,41 @@
+package com.jslib.wtf.cli.build;
+
+import java.util.Map;
+
+// style file relative to project directory; style files named with a media query alias suffix, e.g. button_xsd.css,
+// apply only for the media query expression declared by project descriptor for that alias
+class Style {
+	private final String source;
+	private final String media;
+
+	public Style(String source, String media) {
+		this.source = source;
+		this.media = media;
+	}
+
+	public static Style of(String source, Map<String, String> mediaQueries) {
+		String fileName = source.substring(source.lastIndexOf('/') + 1, source.length() - ".css".length());
+		int separator = fileName.lastIndexOf('_');
+		String expression = separator != -1 ? mediaQueries.get(fileName.substring(separator + 1)) : null;
+		return new Style(source, expression != null ? "(" + expression + ")" : null);
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	// media query expression or null if style applies to all media
+	public String getMedia() {
+		return media;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Style && source.equals(((Style) obj).source);
+	}
+
+	@Override
+	public int hashCode() {
+		return source.hashCode();
+	}
+}
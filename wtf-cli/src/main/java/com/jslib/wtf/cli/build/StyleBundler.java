@@ -0,0 +1,160 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// merge page styles into a single minified style sheet, in cascade order; styles named with a media query alias are
+// wrapped into @media blocks and @import rules are moved on top since browsers ignore them after other rules
+//
+// style rules are removed if all their selectors require a class name, id or element name that is used neither by page
+// markup nor by page scripts; names inside attribute selectors and functional pseudo classes are not considered
+final class StyleBundler {
+	private StyleBundler() {
+	}
+
+	// markup names are element names, class names with dot prefix and ids with hash prefix
+	public static Bundle bundle(Project project, String name, List<Style> styles, Set<String> markupNames, List<Script> scripts) throws IOException {
+		List<Set<String>> scriptsNames = new ArrayList<>();
+		for (Script script : scripts) {
+			scriptsNames.add(project.getScriptNames(script.getSource()));
+		}
+		Predicate<String> used = usedName -> {
+			if (markupNames.contains(usedName)) {
+				return true;
+			}
+			String scriptName = usedName.charAt(0) == '.' || usedName.charAt(0) == '#' ? usedName.substring(1) : usedName;
+			return scriptsNames.stream().anyMatch(names -> names.contains(scriptName));
+		};
+
+		StringBuilder imports = new StringBuilder();
+		StringBuilder rules = new StringBuilder();
+		write(project, styles, used, imports, rules);
+		return new Bundle(name, "css", imports.append(rules).toString());
+	}
+
+	// critical styles are page bundle rules used by page markup, that is, rules needed for first paint, to be inlined into
+	// page head while bundle is loaded asynchronously; bundle URLs are rebased to page, base being the prefix for links
+	// from page to build root
+	//
+	// @import rules are not critical since an imported style sheet would block rendering again
+	public static String critical(Project project, List<Style> styles, Set<String> markupNames, String base) throws IOException {
+		StringBuilder rules = new StringBuilder();
+		write(project, styles, markupNames::contains, new StringBuilder(), rules);
+		if (rules.length() == 0) {
+			return "";
+		}
+		// style sheets URLs are relative to bundles directory, a build root child
+		StringBuilder critical = new StringBuilder();
+		for (CssRule rule : Css.parse(rules.toString(), url -> url.startsWith("../") ? base + url.substring(3) : url)) {
+			rule.write(selectors -> true, critical);
+		}
+		return critical.toString();
+	}
+
+	private static void write(Project project, List<Style> styles, Predicate<String> used, StringBuilder imports, StringBuilder rules) throws IOException {
+		for (Style style : styles) {
+			int start = rules.length();
+			if (style.getMedia() != null) {
+				rules.append("@media ").append(style.getMedia()).append('{');
+			}
+			int rulesStart = rules.length();
+			for (CssRule rule : project.getStylesheet(style.getSource()).getRules()) {
+				if ("import".equals(rule.getName())) {
+					imports.append(rule.getPrelude());
+					if (style.getMedia() != null) {
+						imports.append(' ').append(style.getMedia());
+					}
+					imports.append(';');
+					continue;
+				}
+				// bundle is served as UTF-8
+				if ("charset".equals(rule.getName())) {
+					continue;
+				}
+				rule.write(selectors -> isUsed(selectors, used), rules);
+			}
+			if (style.getMedia() != null) {
+				if (rules.length() == rulesStart) {
+					rules.setLength(start);
+				} else {
+					rules.append('}');
+				}
+			}
+		}
+	}
+
+	// a selectors list is used if at least one of its selectors has all required names used
+	static boolean isUsed(String selectors, Predicate<String> used) {
+		boolean selectorUsed = true;
+		int depth = 0;
+		int i = 0;
+		while (i < selectors.length()) {
+			char c = selectors.charAt(i);
+			if (c == '\\') {
+				// escaped names are not decoded; keep the rule
+				return true;
+			}
+			if (c == '"' || c == '\'') {
+				int end = selectors.indexOf(c, i + 1);
+				i = end != -1 ? end + 1 : selectors.length();
+				continue;
+			}
+			if (c == '(' || c == '[') {
+				++depth;
+			} else if (c == ')' || c == ']') {
+				--depth;
+			}
+			if (depth > 0 || c == ')' || c == ']') {
+				++i;
+				continue;
+			}
+
+			if (c == ',') {
+				if (selectorUsed) {
+					return true;
+				}
+				selectorUsed = true;
+				++i;
+				continue;
+			}
+			if (c == '.' || c == '#' || c == ':') {
+				int end = i + 1;
+				while (end < selectors.length() && selectors.charAt(end) == ':') {
+					++end;
+				}
+				end = nameEnd(selectors, end);
+				// pseudo classes and elements are not markup names
+				if (c != ':' && end > i + 1 && !used.test(selectors.substring(i, end))) {
+					selectorUsed = false;
+				}
+				i = end;
+				continue;
+			}
+			if (isNameStart(c)) {
+				int end = nameEnd(selectors, i);
+				if (!used.test(selectors.substring(i, end).toLowerCase())) {
+					selectorUsed = false;
+				}
+				i = end;
+				continue;
+			}
+			++i;
+		}
+		return selectorUsed;
+	}
+
+	private static int nameEnd(String text, int start) {
+		int end = start;
+		while (end < text.length() && (isNameStart(text.charAt(end)) || Character.isDigit(text.charAt(end)))) {
+			++end;
+		}
+		return end;
+	}
+
+	private static boolean isNameStart(char c) {
+		return Character.isLetter(c) || c == '-' || c == '_';
+	}
+}
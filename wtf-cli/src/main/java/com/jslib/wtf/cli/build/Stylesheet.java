@@ -0,0 +1,63 @@
+package com.jslib.wtf.cli.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// style file parsed into minified rules; relative URLs are rewritten for bundles directory, so that rules keep pointing
+// to the same files when moved into a bundle, and files they point to are collected to be copied by build
+class Stylesheet {
+	private final String source;
+	private final List<CssRule> rules;
+	private final Set<String> files;
+
+	public Stylesheet(Path projectDir, String source) throws IOException {
+		this.source = source;
+		String sourceDir = source.lastIndexOf('/') != -1 ? source.substring(0, source.lastIndexOf('/')) : "";
+		Set<String> files = new LinkedHashSet<>();
+		Path rootDir = projectDir.toAbsolutePath().normalize();
+		String text = new String(Files.readAllBytes(projectDir.resolve(source)), StandardCharsets.UTF_8);
+		this.rules = Css.parse(text, url -> {
+			// absolute URLs and WOOD references, e.g. @image/icon, are not rewritten
+			if (url.isEmpty() || url.startsWith("/") || url.startsWith("#") || url.startsWith("@") || url.contains(":")) {
+				return url;
+			}
+			// query and fragment are kept, e.g. font.eot?#iefix
+			int suffix = url.length();
+			for (char separator : new char[] { '?', '#' }) {
+				if (url.indexOf(separator) != -1) {
+					suffix = Math.min(suffix, url.indexOf(separator));
+				}
+			}
+			Path file = rootDir.resolve(sourceDir).resolve(url.substring(0, suffix)).normalize();
+			if (!file.startsWith(rootDir)) {
+				return url;
+			}
+			String path = rootDir.relativize(file).toString().replace('\\', '/');
+			if (Files.isRegularFile(file)) {
+				files.add(path);
+			}
+			// bundles directory is a build root child
+			return "../" + Project.target(path) + url.substring(suffix);
+		});
+		this.files = Collections.unmodifiableSet(files);
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public List<CssRule> getRules() {
+		return rules;
+	}
+
+	// project files referenced by style URLs, relative to project
+	public Set<String> getFiles() {
+		return files;
+	}
+}
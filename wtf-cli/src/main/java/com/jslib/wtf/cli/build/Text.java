@@ -0,0 +1,14 @@
+package com.jslib.wtf.cli.build;
+
+// markup text, not escaped
+class Text extends Node {
+	private final String value;
+
+	public Text(String value) {
+		this.value = value;
+	}
+
+	public String getValue() {
+		return value;
+	}
+}
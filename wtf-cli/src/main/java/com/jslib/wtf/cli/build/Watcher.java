@@ -0,0 +1,101 @@
+package com.jslib.wtf.cli.build;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// watch project source directories, recursively, and project descriptor; directories created while watching are
+// registered too
+//
+// a single edit usually fires a burst of events, e.g. editors saving via temporary file and rename, so changes are
+// reported only after no event arrived for a debounce period
+class Watcher implements Closeable {
+	private static final String[] SOURCE_DIRS = { "res", "script", "lib" };
+
+	private final Path projectDir;
+	private final WatchService service;
+	private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+	public Watcher(Path projectDir) throws IOException {
+		this.projectDir = projectDir;
+		this.service = projectDir.getFileSystem().newWatchService();
+		// project root is watched only for project descriptor changes and source directories creation
+		directories.put(projectDir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), projectDir);
+		for (String sourceDir : SOURCE_DIRS) {
+			register(projectDir.resolve(sourceDir));
+		}
+	}
+
+	// block till project files change and return changed files, relative to project; returned set is empty if events
+	// were lost and changed files are not known
+	public Set<String> await(long debounce) throws InterruptedException, IOException {
+		Set<String> changes = new TreeSet<>();
+		boolean overflow = false;
+		// events not related to project files, e.g. build directory creation, do not end waiting
+		while (changes.isEmpty() && !overflow) {
+			WatchKey key = service.take();
+			while (key != null) {
+				overflow |= process(key, changes);
+				key = service.poll(debounce, TimeUnit.MILLISECONDS);
+			}
+		}
+		return changes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		service.close();
+	}
+
+	// collect changed files from watch key events and return true if events were lost
+	private boolean process(WatchKey key, Set<String> changes) throws IOException {
+		boolean overflow = false;
+		Path dir = directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW || dir == null) {
+				overflow = true;
+				continue;
+			}
+			Path file = dir.resolve((Path) event.context());
+			boolean sourceFile = !dir.equals(projectDir) || Arrays.asList(SOURCE_DIRS).contains(file.getFileName().toString());
+			if (event.kind() == ENTRY_CREATE && sourceFile && Files.isDirectory(file)) {
+				register(file);
+			}
+			if (!sourceFile && !file.getFileName().toString().equals(Project.DESCRIPTOR_FILE)) {
+				continue;
+			}
+			changes.add(projectDir.relativize(file).toString().replace('\\', '/'));
+		}
+		if (!key.reset()) {
+			directories.remove(key);
+		}
+		return overflow;
+	}
+
+	private void register(Path dir) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			return;
+		}
+		try (Stream<Path> stream = Files.walk(dir)) {
+			for (Path subdir : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+				directories.put(subdir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), subdir);
+			}
+		}
+	}
+}
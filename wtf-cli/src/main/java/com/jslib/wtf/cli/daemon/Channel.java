@@ -0,0 +1,127 @@
+package com.jslib.wtf.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+// framed duplex channel between daemon client and daemon: every frame is a type byte followed by payload length and
+// payload bytes; exit frame carries command exit code in place of the length
+class Channel {
+	static final byte STDIN = 'I';
+	static final byte STDOUT = 'O';
+	static final byte STDERR = 'E';
+	static final byte EXIT = 'X';
+	// daemon reply to request header, sent before any other frame; on reject client executes command in process
+	static final byte ACCEPT = 'A';
+	static final byte REJECT = 'R';
+
+	// arguments count used by request header to signal daemon stop
+	static final int STOP = -1;
+
+	private final DataInputStream input;
+	private final DataOutputStream output;
+
+	public Channel(Socket socket) throws IOException {
+		this.input = new DataInputStream(socket.getInputStream());
+		this.output = new DataOutputStream(socket.getOutputStream());
+	}
+
+	public DataInputStream input() {
+		return input;
+	}
+
+	public DataOutputStream output() {
+		return output;
+	}
+
+	public synchronized void writeFrame(byte type, byte[] buffer, int offset, int length) throws IOException {
+		output.writeByte(type);
+		output.writeInt(length);
+		if (length > 0) {
+			output.write(buffer, offset, length);
+		}
+		output.flush();
+	}
+
+	public synchronized void writeExit(int exitCode) throws IOException {
+		output.writeByte(EXIT);
+		output.writeInt(exitCode);
+		output.flush();
+	}
+
+	public synchronized void writeReply(byte reply) throws IOException {
+		output.writeByte(reply);
+		output.writeInt(0);
+		output.flush();
+	}
+
+	public OutputStream getOutputStream(final byte type) {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] buffer, int offset, int length) throws IOException {
+				writeFrame(type, buffer, offset, length);
+			}
+		};
+	}
+
+	// standard input frame with negative length signals end of stream
+	public InputStream getInputStream() {
+		return new InputStream() {
+			private byte[] frame = new byte[0];
+			private int position;
+			private boolean eof;
+
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				while (position == frame.length) {
+					if (eof || !nextFrame()) {
+						return -1;
+					}
+				}
+				int count = Math.min(length, frame.length - position);
+				System.arraycopy(frame, position, buffer, offset, count);
+				position += count;
+				return count;
+			}
+
+			@Override
+			public int available() {
+				return frame.length - position;
+			}
+
+			private boolean nextFrame() throws IOException {
+				byte type;
+				try {
+					type = input.readByte();
+				} catch (EOFException e) {
+					eof = true;
+					return false;
+				}
+				int length = input.readInt();
+				if (type != STDIN || length < 0) {
+					eof = true;
+					return false;
+				}
+				frame = new byte[length];
+				input.readFully(frame);
+				position = 0;
+				return true;
+			}
+		};
+	}
+}
@@ -0,0 +1,167 @@
+package com.jslib.wtf.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.jslib.commons.cli.Home;
+import com.jslib.wtf.cli.Hash;
+import com.jslib.wtf.cli.Main;
+
+import js.log.Log;
+import js.log.LogFactory;
+
+public class Daemon {
+	private static final Log log = LogFactory.getLog(Daemon.class);
+
+	public static void main(String... args) throws IOException {
+		Home.setMainClass(Main.class);
+		long idleTimeout = TimeUnit.MINUTES.toMillis(args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_IDLE_TIMEOUT);
+		Daemon daemon = new Daemon(Paths.get(Home.getPath()), idleTimeout);
+		daemon.serve();
+		System.exit(0);
+	}
+
+	static final long DEFAULT_IDLE_TIMEOUT = 180;
+	static final String ADDRESS_FILE = "daemon.port";
+
+	private final Path addressFile;
+	private final long idleTimeout;
+	private final String token;
+
+	private final InputStream stdin;
+	private final PrintStream stdout;
+	private final PrintStream stderr;
+
+	// daemon executes command lines in process, on behalf of clients with their own working directories
+	private Command command = Main::execute;
+	private boolean running;
+
+	public Daemon(Path homeDir, long idleTimeout) {
+		this.addressFile = homeDir.resolve(ADDRESS_FILE);
+		this.idleTimeout = idleTimeout;
+		this.token = token();
+
+		this.stdin = System.in;
+		this.stdout = System.out;
+		this.stderr = System.err;
+	}
+
+	public void serve() throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			serverSocket.setSoTimeout((int) idleTimeout);
+			writeAddressFile(serverSocket.getLocalPort());
+			Runtime.getRuntime().addShutdownHook(new Thread(this::deleteAddressFile));
+			log.info("WTF daemon listening on port |%d|.", serverSocket.getLocalPort());
+
+			running = true;
+			while (running) {
+				// requests are served one at a time since standard streams are process global
+				try (Socket socket = serverSocket.accept()) {
+					handle(socket);
+				} catch (SocketTimeoutException e) {
+					log.info("WTF daemon idle timeout. Exit.");
+					running = false;
+				} catch (Throwable t) {
+					log.error(t);
+				}
+			}
+		} finally {
+			deleteAddressFile();
+		}
+	}
+
+	private void handle(Socket socket) throws IOException {
+		Channel channel = new Channel(socket);
+		DataInputStream input = channel.input();
+		if (!token.equals(input.readUTF())) {
+			log.warn("Reject daemon request with invalid token.");
+			channel.writeReply(Channel.REJECT);
+			return;
+		}
+		channel.writeReply(Channel.ACCEPT);
+
+		String requestWorkingDir = input.readUTF();
+		int argsCount = input.readInt();
+		if (argsCount == Channel.STOP) {
+			log.info("WTF daemon stop request.");
+			running = false;
+			channel.writeExit(0);
+			return;
+		}
+		String[] args = new String[argsCount];
+		for (int i = 0; i < argsCount; ++i) {
+			args[i] = input.readUTF();
+		}
+
+		int exitCode;
+		PrintStream out = printStream(channel, Channel.STDOUT);
+		PrintStream err = printStream(channel, Channel.STDERR);
+		System.setIn(channel.getInputStream());
+		System.setOut(out);
+		System.setErr(err);
+		try {
+			exitCode = command.execute(Paths.get(requestWorkingDir), args);
+		} catch (Throwable t) {
+			t.printStackTrace(err);
+			exitCode = 1;
+		} finally {
+			out.flush();
+			err.flush();
+			System.setIn(stdin);
+			System.setOut(stdout);
+			System.setErr(stderr);
+		}
+		channel.writeExit(exitCode);
+	}
+
+	private void writeAddressFile(int port) throws IOException {
+		Files.write(addressFile, (port + " " + token).getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.setPosixFilePermissions(addressFile, PosixFilePermissions.fromString("rw-------"));
+		} catch (UnsupportedOperationException ignore) {
+			// not a POSIX file system
+		}
+	}
+
+	private void deleteAddressFile() {
+		try {
+			Files.deleteIfExists(addressFile);
+		} catch (IOException e) {
+			log.error(e);
+		}
+	}
+
+	private static PrintStream printStream(Channel channel, byte type) {
+		return new PrintStream(channel.getOutputStream(type), true);
+	}
+
+	private static String token() {
+		byte[] bytes = new byte[16];
+		new SecureRandom().nextBytes(bytes);
+		return Hash.hex(bytes);
+	}
+
+	interface Command {
+		int execute(Path workingDir, String... args) throws IOException;
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// Test support
+
+	void setCommand(Command command) {
+		this.command = command;
+	}
+}
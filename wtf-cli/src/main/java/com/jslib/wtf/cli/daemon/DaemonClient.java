@@ -0,0 +1,214 @@
+package com.jslib.wtf.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// thin client that forwards command line to running daemon, if any; it uses only JDK classes so that delegating a
+// command does not load picocli nor WTF tasks
+public final class DaemonClient {
+	private static final int CONNECT_TIMEOUT = 1000;
+
+	// commands that must run in the invoking process: daemon management and install update that replaces daemon jars
+	private static final List<String> LOCAL_COMMANDS = Arrays.asList("daemon", "update");
+	// build watch option, long or in a short options cluster, e.g. -fw
+	private static final Pattern WATCH_OPTION = Pattern.compile("^(--watch|-[a-zA-Z]*w[a-zA-Z]*)$");
+
+	private DaemonClient() {
+	}
+
+	// returns null if there is no running daemon and command should be executed in process
+	public static Integer exec(Path homeDir, String... args) {
+		return exec(homeDir, Paths.get("").toAbsolutePath(), System.in, System.out, System.err, args);
+	}
+
+	// standard streams are captured by caller since daemon running in the same process, e.g. on tests, redirects them
+	static Integer exec(Path homeDir, Path workingDir, InputStream stdin, PrintStream stdout, PrintStream stderr, String... args) {
+		if (isLocal(args)) {
+			return null;
+		}
+		Address address = address(homeDir);
+		if (address == null) {
+			return null;
+		}
+
+		Socket socket;
+		try {
+			socket = connect(address);
+		} catch (IOException e) {
+			// stale address file left by a daemon that did not exit cleanly
+			return null;
+		}
+		Channel channel;
+		try {
+			channel = new Channel(socket);
+			DataOutputStream output = channel.output();
+			output.writeUTF(address.token);
+			output.writeUTF(workingDir.toString());
+			output.writeInt(args.length);
+			for (String arg : args) {
+				output.writeUTF(arg);
+			}
+			output.flush();
+			// daemon replies before reading standard input so that a rejected command still has its input
+			byte reply = channel.input().readByte();
+			channel.input().readInt();
+			if (reply != Channel.ACCEPT) {
+				close(socket);
+				return null;
+			}
+		} catch (IOException e) {
+			// daemon closed connection before accepting command, e.g. on idle timeout
+			close(socket);
+			return null;
+		}
+
+		try {
+			Thread stdinPump = new Thread(() -> pumpStdin(channel, stdin), "wtf-stdin");
+			stdinPump.setDaemon(true);
+			stdinPump.start();
+			return readFrames(channel.input(), stdout, stderr);
+		} catch (IOException e) {
+			stderr.printf("WTF daemon connection lost: %s%n", e.getMessage());
+			return 1;
+		} finally {
+			close(socket);
+		}
+	}
+
+	public static boolean isRunning(Path homeDir) {
+		Address address = address(homeDir);
+		if (address == null) {
+			return false;
+		}
+		try (Socket socket = connect(address)) {
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public static boolean stop(Path homeDir) {
+		Address address = address(homeDir);
+		if (address == null) {
+			return false;
+		}
+		try (Socket socket = connect(address)) {
+			Channel channel = new Channel(socket);
+			DataOutputStream output = channel.output();
+			output.writeUTF(address.token);
+			output.writeUTF("");
+			output.writeInt(Channel.STOP);
+			output.flush();
+			readFrames(channel.input(), System.out, System.err);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static boolean isLocal(String... args) {
+		if (args.length == 0) {
+			return false;
+		}
+		if (LOCAL_COMMANDS.contains(args[0])) {
+			return true;
+		}
+		// build watch loop runs until interrupted with Ctrl-C, which stops the client but not the command on daemon
+		if (args[0].equals("build")) {
+			for (String arg : args) {
+				if (WATCH_OPTION.matcher(arg).matches()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int readFrames(DataInputStream input, PrintStream stdout, PrintStream stderr) throws IOException {
+		byte[] buffer = new byte[0];
+		for (;;) {
+			byte type = input.readByte();
+			int length = input.readInt();
+			if (type == Channel.EXIT) {
+				stdout.flush();
+				stderr.flush();
+				return length;
+			}
+			if (buffer.length < length) {
+				buffer = new byte[length];
+			}
+			input.readFully(buffer, 0, length);
+			OutputStream stream = type == Channel.STDERR ? stderr : stdout;
+			stream.write(buffer, 0, length);
+			stream.flush();
+		}
+	}
+
+	private static void pumpStdin(Channel channel, InputStream stdin) {
+		byte[] buffer = new byte[4096];
+		try {
+			int length;
+			while ((length = stdin.read(buffer)) != -1) {
+				channel.writeFrame(Channel.STDIN, buffer, 0, length);
+			}
+			channel.writeFrame(Channel.STDIN, buffer, 0, -1);
+		} catch (IOException ignore) {
+			// connection closed by daemon after command exit
+		}
+	}
+
+	private static Socket connect(Address address) throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), address.port), CONNECT_TIMEOUT);
+		} catch (IOException e) {
+			close(socket);
+			throw e;
+		}
+		return socket;
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException ignore) {
+		}
+	}
+
+	private static Address address(Path homeDir) {
+		Path addressFile = homeDir.resolve(Daemon.ADDRESS_FILE);
+		if (!Files.exists(addressFile)) {
+			return null;
+		}
+		try {
+			String[] parts = new String(Files.readAllBytes(addressFile), StandardCharsets.UTF_8).trim().split(" ");
+			return new Address(Integer.parseInt(parts[0]), parts[1]);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static class Address {
+		final int port;
+		final String token;
+
+		Address(int port, String token) {
+			this.port = port;
+			this.token = token;
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.jslib.wtf.cli.daemon;
+
+import picocli.CommandLine.Command;
+
+@Command(name = "daemon", description = "Background daemon that keeps WTF commands warm.", mixinStandardHelpOptions = true)
+public class DaemonCommands {
+
+}
@@ -0,0 +1,61 @@
+package com.jslib.wtf.cli.daemon;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
+import com.jslib.commons.cli.Task;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "start", description = "Start background daemon.")
+public class DaemonStart extends Task {
+	private static final long STARTUP_TIMEOUT = 10000;
+
+	@Option(names = { "-i", "--idle-timeout" }, description = "Minutes of inactivity after which daemon exits. Default: ${DEFAULT-VALUE}", defaultValue = "180")
+	private long idleTimeout;
+
+	@Override
+	protected ExitCode exec() throws Exception {
+		Path homeDir = files.getPath(Home.getPath());
+		if (DaemonClient.isRunning(homeDir)) {
+			console.print("WTF daemon already running.");
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+
+		Path logFile = homeDir.resolve("daemon.log");
+		List<String> command = new ArrayList<>();
+		command.add("java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		String logsDir = System.getProperty("LOGS_DIR");
+		if (logsDir != null) {
+			command.add("-DLOGS_DIR=" + logsDir);
+		}
+		command.add(Daemon.class.getName());
+		command.add(Long.toString(idleTimeout));
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.directory(homeDir.toFile());
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()));
+		processBuilder.start();
+
+		long timestamp = System.currentTimeMillis() + STARTUP_TIMEOUT;
+		while (!DaemonClient.isRunning(homeDir)) {
+			if (System.currentTimeMillis() > timestamp) {
+				console.print("WTF daemon not started. See %s.", logFile);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+			Thread.sleep(100);
+		}
+
+		console.print("WTF daemon started.");
+		return ExitCode.SUCCESS;
+	}
+}
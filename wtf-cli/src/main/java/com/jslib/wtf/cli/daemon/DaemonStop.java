@@ -0,0 +1,25 @@
+package com.jslib.wtf.cli.daemon;
+
+import java.nio.file.Path;
+
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
+import com.jslib.commons.cli.Task;
+
+import picocli.CommandLine.Command;
+
+@Command(name = "stop", description = "Stop background daemon.")
+public class DaemonStop extends Task {
+	@Override
+	protected ExitCode exec() throws Exception {
+		Path homeDir = files.getPath(Home.getPath());
+		if (!DaemonClient.stop(homeDir)) {
+			console.print("WTF daemon not running.");
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+
+		console.print("WTF daemon stopped.");
+		return ExitCode.SUCCESS;
+	}
+}
@@ -0,0 +1,84 @@
+package com.jslib.wtf.cli.icons;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import js.util.Classes;
+
+// parse color specifications accepted by ImageMagick: X11 color names, with optional 1..4 shade suffix, hexadecimal
+// #rgb or #rrggbb, rgb(r,g,b) and none / transparent
+final class ColorNames {
+	private static final Pattern NAME_PATTERN = Pattern.compile("^([a-z]+)([1-4])?$");
+	private static final Pattern RGB_PATTERN = Pattern.compile("^rgb\\(\\s*(\\d+)\\s*,\\s*(\\d+)\\s*,\\s*(\\d+)\\s*\\)$");
+
+	// X11 shades are approximated by scaling base color with factors used by X11 for levels 2, 3 and 4
+	private static final double[] SHADE_FACTORS = new double[] { 1.0, 1.0, 0.932, 0.804, 0.545 };
+
+	private static Map<String, Color> colors;
+
+	private ColorNames() {
+	}
+
+	public static Color parse(String spec) {
+		String value = spec.trim().toLowerCase(Locale.ENGLISH);
+		if (value.equals("none") || value.equals("transparent")) {
+			return new Color(0, 0, 0, 0);
+		}
+		if (value.startsWith("#")) {
+			return hex(value.substring(1), spec);
+		}
+		Matcher matcher = RGB_PATTERN.matcher(value);
+		if (matcher.find()) {
+			return new Color(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+		}
+
+		matcher = NAME_PATTERN.matcher(value);
+		Color color = matcher.find() ? colors().get(matcher.group(1)) : null;
+		if (color == null) {
+			throw new IllegalArgumentException("Unrecognized color " + spec);
+		}
+		if (matcher.group(2) == null) {
+			return color;
+		}
+		double factor = SHADE_FACTORS[Integer.parseInt(matcher.group(2))];
+		return new Color((int) Math.round(color.getRed() * factor), (int) Math.round(color.getGreen() * factor), (int) Math.round(color.getBlue() * factor));
+	}
+
+	private static Color hex(String value, String spec) {
+		if (value.length() == 3) {
+			StringBuilder builder = new StringBuilder();
+			for (char c : value.toCharArray()) {
+				builder.append(c).append(c);
+			}
+			value = builder.toString();
+		}
+		if (value.length() != 6) {
+			throw new IllegalArgumentException("Unrecognized color " + spec);
+		}
+		return new Color(Integer.parseInt(value, 16));
+	}
+
+	private static synchronized Map<String, Color> colors() {
+		if (colors == null) {
+			Map<String, Color> map = new HashMap<>();
+			try (BufferedReader reader = new BufferedReader(Classes.getResourceAsReader("color-names"))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] parts = line.split(" ");
+					map.put(parts[0], new Color(Integer.parseInt(parts[1].substring(1), 16)));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			colors = map;
+		}
+		return colors;
+	}
+}
@@ -1,20 +1,24 @@
 package com.jslib.wtf.cli.icons;
 
-import static com.jslib.tools.AbstractToolProcess.buildCommand;
 import static java.lang.String.format;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
 import com.jslib.commons.cli.Task;
-import com.jslib.tools.IResultParser;
 import com.jslib.tools.imagick.ConvertProcess;
-import com.jslib.tools.imagick.ImageMagickProcess;
 
 import js.util.Classes;
 import picocli.CommandLine.Command;
@@ -22,20 +26,19 @@ import picocli.CommandLine.Option;
 
 @Command(name = "icons", description = "Create application icons.")
 public class CreateIcons extends Task {
-	private static int[] ICON_VARIANTS = new int[] { 128, 144, 152, 192, 256 };
+	private static final String ICON_VARIANTS = "128,144,152,192,256";
+	private static final int ICON_SIZE = 512;
+	private static final int FEATURED_ICON_SIZE = 256;
 
 	@Option(names = { "-o", "--overwrite" }, description = "Force overwrite existing icons.")
 	private boolean overwrite;
+	@Option(names = { "-q", "--quality" }, description = "Resize every icon variant from 512 pixels icon instead of reusing larger variants. ImageMagick renderer only.")
+	private boolean quality;
+	@Option(names = { "-r", "--renderer" }, description = "Icons renderer: imagick | java2d. Default: icons.renderer property, if defined, or imagick.")
+	private String rendererName;
 	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about created files.")
 	private boolean verbose;
 
-	private final ImageMagickProcess convert;
-
-	public CreateIcons() throws IOException {
-		super();
-		this.convert = new ConvertProcess();
-	}
-
 	@Override
 	protected ExitCode exec() throws Exception {
 
@@ -49,83 +52,156 @@ public class CreateIcons extends Task {
 			return ExitCode.ABORT;
 		}
 
-		Path icon512 = assetDir.resolve("app-icon-512.png");
-		if (overwrite || !files.exists(icon512)) {
-			String backgroundColor = console.input("background color", randomColor());
-			Path backgroundFile = projectDir.resolve("background.png");
-			imagick("-size 512x512 xc:none -fill ${color} -draw \"circle 256,256 256,1\" ${file}", backgroundColor, backgroundFile);
-			BrightnessResult brightness = imagick(BrightnessResult.class, "${file} -colorspace Gray -format \"%[mean]\" info:", backgroundFile);
-
-			String textColor = console.input("text color", brightness.isLightColor() ? "black" : "white");
-			boolean sphereEffect = console.input("sphere effect: yes | no", "no").equalsIgnoreCase("yes");
-
-			if (sphereEffect) {
-				Path lightEffectFile = projectDir.resolve("light-effect.png");
-				imagick("-size 512x512 canvas:none -draw \"circle 256,256 256,146\" -negate -channel A -gaussian-blur 0x80 ${file}", lightEffectFile);
-				imagick("-composite -compose atop -geometry -95-124 ${source} ${effect} ${target}", backgroundFile, lightEffectFile, backgroundFile);
-				files.delete(lightEffectFile);
+		// icon variants sizes, in descending order, as comma separated list from icons.variants property
+		SortedMap<Integer, Path> variants = new TreeMap<>(Collections.reverseOrder());
+		String variantsList = config.get("icons.variants");
+		for (String variant : (variantsList != null ? variantsList : ICON_VARIANTS).split(",")) {
+			int size = variant.trim().matches("\\d+") ? Integer.parseInt(variant.trim()) : 0;
+			if (size <= 0 || size >= ICON_SIZE) {
+				console.print("Bad icon variant size %s. Should be less than %d.", variant, ICON_SIZE);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
 			}
+			variants.put(size, assetDir.resolve(format("app-icon-%d.png", size)));
+		}
 
-			Path textFile = projectDir.resolve("text.png");
-			String label = projectName.substring(0, 2).toUpperCase();
-			if (sphereEffect) {
-				imagick("-size 512x512 -background transparent -fill ${color} -pointsize 300 -wave 50x1024 -gravity center caption:${label} ${file}", textColor, label, textFile);
-				imagick("-composite -geometry -0-50 ${background} ${text} ${icon}", backgroundFile, textFile, icon512);
-			} else {
-				imagick("-size 512x512 -background transparent -fill ${color} -pointsize 256 -gravity center caption:${label} ${file}", textColor, label, textFile);
-				imagick("-composite ${background} ${text} ${icon}", backgroundFile, textFile, icon512);
-			}
+		if (rendererName == null) {
+			rendererName = config.get("icons.renderer");
+		}
+		if (rendererName == null) {
+			rendererName = "imagick";
+		}
 
-			files.delete(backgroundFile);
-			files.delete(textFile);
+		IconRenderer renderer;
+		switch (rendererName) {
+		case "imagick":
+			// cannot set binary path on constructor because config is not initialized there
+			ConvertProcess.setPath(config.getex("imagick.convert.path"));
+			renderer = new ImageMagickRenderer(projectDir, console, verbose);
+			break;
+
+		case "java2d":
+			renderer = new Java2DRenderer(console, verbose);
+			// java2d variants are the same in both modes and quality flag should not split their cache entries
+			quality = false;
+			break;
+
+		default:
+			console.print("Unknown icons renderer %s.", rendererName);
+			console.print("Command abort.");
+			return ExitCode.ABORT;
 		}
 
-		for (int variant : ICON_VARIANTS) {
-			Path icon = assetDir.resolve(format("app-icon-%d.png", variant));
-			if (overwrite || !files.exists(icon)) {
-				String w = Integer.toString(variant);
-				String h = Integer.toString(variant);
-				imagick("${imageFile} -resize ${width}x${height} ${targetFile}", icon512, w, h, icon);
+		IconCache cache = new IconCache(files.getPath(Home.getPath()).resolve("cache/icons"));
+		try (IconRenderer iconRenderer = renderer; StepExecutor steps = new StepExecutor()) {
+			List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+			// featured background does not depend on icon and is created while icon is still in progress
+			Path featured = assetDir.resolve("app-featured.png");
+			boolean createFeatured = overwrite || !files.exists(featured);
+			CompletableFuture<Void> featuredBackground = StepExecutor.done();
+			if (createFeatured) {
+				featuredBackground = steps.submit(renderer::createFeaturedBackground);
 			}
-		}
 
-		Path featured = assetDir.resolve("app-featured.png");
-		if (overwrite || !files.exists(featured)) {
-			Path backgroundFile = projectDir.resolve("background.png");
-			// reverse order of width and height because of -rotate 90
-			imagick("-size 500x952 xc:red -colorspace HSB gradient: -compose CopyRed -composite -colorspace RGB -rotate 90.0 ${file}", backgroundFile);
-			imagick("${source} -brightness-contrast -30x-40 ${target}", backgroundFile, backgroundFile);
+			Path icon512 = assetDir.resolve(format("app-icon-%d.png", ICON_SIZE));
+			CompletableFuture<Void> icon = StepExecutor.done();
+			if (overwrite || !files.exists(icon512)) {
+				icon = createIcon(renderer, cache, steps, projectName, icon512);
+			}
+			pending.add(icon);
 
-			Path iconFile = assetDir.resolve("app-icon-256.png");
-			Path featuredFile = assetDir.resolve("app-featured.png");
-			// offset +122 is adjusted for icon size of 256: (500 - 256) / 2
-			imagick("-composite -compose atop -geometry +122+122 ${background} ${icon} ${featured}", backgroundFile, iconFile, featuredFile);
+			// featured image needs 256 pixels icon even if not configured as variant
+			Path featuredIcon = assetDir.resolve(format("app-icon-%d.png", FEATURED_ICON_SIZE));
+			if (createFeatured) {
+				variants.putIfAbsent(FEATURED_ICON_SIZE, featuredIcon);
+			}
 
-			files.delete(backgroundFile);
+			// all variants are created in a single pass after 512 pixels icon is ready
+			SortedMap<Integer, Path> targetFiles = new TreeMap<>(variants.comparator());
+			variants.forEach((size, file) -> {
+				if (overwrite || !files.exists(file)) {
+					targetFiles.put(size, file);
+				}
+			});
+			CompletableFuture<Void> resize = StepExecutor.done();
+			if (!targetFiles.isEmpty()) {
+				resize = steps.submit(() -> resize(renderer, cache, icon512, targetFiles), icon);
+			}
+			pending.add(resize);
+
+			if (createFeatured) {
+				pending.add(steps.submit(() -> {
+					String key = IconCache.key(renderer.version(), "featured", IconCache.hash(featuredIcon));
+					if (!fetch(cache, key, featured)) {
+						renderer.composeFeatured(featuredIcon, featured);
+						cache.store(key, featured);
+					}
+				}, featuredBackground, resize));
+			}
+
+			steps.await(pending.toArray(new CompletableFuture<?>[0]));
 		}
 
 		return ExitCode.SUCCESS;
 	}
 
-	private void imagick(String command, Object... args) throws IOException {
-		imagick(null, command, args);
+	private CompletableFuture<Void> createIcon(IconRenderer renderer, IconCache cache, StepExecutor steps, String projectName, Path icon512) throws Exception {
+		String backgroundColor = console.input("background color", randomColor());
+		// brightness is needed for text color default value, asked from user before continuing
+		steps.await(steps.submit(() -> renderer.createBackground(backgroundColor)));
+
+		String textColor = console.input("text color", renderer.isLightBackground() ? "black" : "white");
+		boolean sphereEffect = console.input("sphere effect: yes | no", "no").equalsIgnoreCase("yes");
+
+		String label = projectName.substring(0, 2).toUpperCase();
+		String key = IconCache.key(renderer.version(), "icon", ICON_SIZE, label, backgroundColor, textColor, sphereEffect);
+		if (fetch(cache, key, icon512)) {
+			return StepExecutor.done();
+		}
+
+		// light effect and text do not depend each other and are created in parallel
+		CompletableFuture<Void> lightEffect = StepExecutor.done();
+		if (sphereEffect) {
+			lightEffect = steps.submit(renderer::applyLightEffect);
+		}
+		CompletableFuture<Void> text = steps.submit(() -> renderer.createText(textColor, label, sphereEffect));
+
+		return steps.submit(() -> {
+			renderer.composeIcon(icon512);
+			cache.store(key, icon512);
+		}, lightEffect, text);
 	}
 
-	private <T extends IResultParser> T imagick(Class<T> resultType, String parameterizedCommand, Object... args) throws IOException {
-		// cannot set binary path on constructor because config is not initialized there
-		ConvertProcess.setPath(config.getex("imagick.convert.path"));
+	// variants are keyed on 512 pixels icon content so that a customized or previously created icon is cached as well
+	private void resize(IconRenderer renderer, IconCache cache, Path icon512, SortedMap<Integer, Path> targetFiles) throws IOException {
+		String iconHash = IconCache.hash(icon512);
+		SortedMap<Integer, Path> missingFiles = new TreeMap<>(targetFiles.comparator());
+		Map<Integer, String> keys = new HashMap<>();
+		for (Map.Entry<Integer, Path> entry : targetFiles.entrySet()) {
+			String key = IconCache.key(renderer.version(), "variant", entry.getKey(), quality, iconHash);
+			if (!fetch(cache, key, entry.getValue())) {
+				missingFiles.put(entry.getKey(), entry.getValue());
+				keys.put(entry.getKey(), key);
+			}
+		}
 
-		String command = buildCommand(parameterizedCommand, args);
-		if (verbose) {
-			console.print(command);
-			convert.setConsole(console);
+		if (!missingFiles.isEmpty()) {
+			renderer.resize(icon512, missingFiles, quality);
+			for (Map.Entry<Integer, Path> entry : missingFiles.entrySet()) {
+				cache.store(keys.get(entry.getKey()), entry.getValue());
+			}
 		}
-		convert.setTimeout(30000L);
-		if (resultType == null) {
-			convert.exec(command);
-			return null;
+	}
+
+	private boolean fetch(IconCache cache, String key, Path targetFile) throws IOException {
+		if (!cache.fetch(key, targetFile)) {
+			return false;
 		}
-		return convert.exec(command, resultType);
+		if (verbose) {
+			console.print("Copy %s from cache.", targetFile);
+		}
+		return true;
 	}
 
 	private static final List<String> colors = new ArrayList<>();
@@ -142,20 +218,4 @@ public class CreateIcons extends Task {
 		Random random = new Random();
 		return colors.get(random.nextInt(colors.size()));
 	}
-
-	private static class BrightnessResult implements IResultParser {
-		// this value is determined heuristically
-		private static final double LIGH_COLOR_THRESHOLD = 30000;
-
-		private double brightness;
-
-		public boolean isLightColor() {
-			return brightness >= LIGH_COLOR_THRESHOLD;
-		}
-
-		@Override
-		public void parse(String line) {
-			brightness = Double.parseDouble(line);
-		}
-	}
 }
@@ -0,0 +1,57 @@
+package com.jslib.wtf.cli.icons;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+import com.jslib.wtf.cli.Hash;
+
+// content addressed store for generated icons, shared by all projects of a WTF install; entries are named after the hash
+// of the inputs that determine icon content and are never modified after creation, so they are copied to targets
+class IconCache {
+	private final Path cacheDir;
+
+	public IconCache(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	public boolean fetch(String key, Path targetFile) throws IOException {
+		Path cachedFile = cacheDir.resolve(key + ".png");
+		if (!Files.exists(cachedFile)) {
+			return false;
+		}
+		Files.copy(cachedFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	public void store(String key, Path sourceFile) throws IOException {
+		Files.createDirectories(cacheDir);
+		// concurrent processes may store the same key; publish with atomic rename so that readers see complete files
+		Path tempFile = cacheDir.resolve(key + "." + UUID.randomUUID() + ".tmp");
+		Files.copy(sourceFile, tempFile);
+		Path cachedFile = cacheDir.resolve(key + ".png");
+		try {
+			Files.move(tempFile, cachedFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, cachedFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public static String key(Object... inputs) {
+		MessageDigest digest = Hash.sha256();
+		for (Object input : inputs) {
+			digest.update(String.valueOf(input).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		return Hash.hex(digest.digest());
+	}
+
+	public static String hash(Path file) throws IOException {
+		return Hash.sha256Hex(file);
+	}
+}
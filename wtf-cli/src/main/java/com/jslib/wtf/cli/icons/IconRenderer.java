@@ -0,0 +1,33 @@
+package com.jslib.wtf.cli.icons;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SortedMap;
+
+// icon drawing steps used by create icons task; steps working on distinct artifacts may run concurrently
+interface IconRenderer extends AutoCloseable {
+	// renderer identity used by icons cache keys; update it whenever rendering changes output
+	String version();
+
+	void createBackground(String color) throws IOException;
+
+	boolean isLightBackground() throws IOException;
+
+	void applyLightEffect() throws IOException;
+
+	void createText(String color, String label, boolean sphereEffect) throws IOException;
+
+	void composeIcon(Path iconFile) throws IOException;
+
+	void createFeaturedBackground() throws IOException;
+
+	void composeFeatured(Path iconFile, Path featuredFile) throws IOException;
+
+	// create all variants from a single decode of source file; target files are sorted by variant size, descending;
+	// quality mode resamples every variant from source instead of reusing intermediate levels; renderers with a single
+	// resize mode ignore it
+	void resize(Path sourceFile, SortedMap<Integer, Path> targetFiles, boolean quality) throws IOException;
+
+	@Override
+	void close() throws IOException;
+}
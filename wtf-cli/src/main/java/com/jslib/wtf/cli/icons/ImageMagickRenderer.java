@@ -0,0 +1,169 @@
+package com.jslib.wtf.cli.icons;
+
+import static com.jslib.tools.AbstractToolProcess.buildCommand;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.jslib.commons.cli.Console;
+import com.jslib.tools.IResultParser;
+import com.jslib.tools.imagick.ConvertProcess;
+import com.jslib.tools.imagick.ImageMagickProcess;
+
+// renderer based on external ImageMagick convert process; intermediate images are stored on temporary files
+class ImageMagickRenderer implements IconRenderer {
+	private final Console console;
+	private final boolean verbose;
+
+	private final Path backgroundFile;
+	private final Path lightEffectFile;
+	private final Path textFile;
+	private final Path featuredBackgroundFile;
+
+	private boolean sphereEffect;
+
+	public ImageMagickRenderer(Path workingDir, Console console, boolean verbose) {
+		this.console = console;
+		this.verbose = verbose;
+		this.backgroundFile = workingDir.resolve("background.png");
+		this.lightEffectFile = workingDir.resolve("light-effect.png");
+		this.textFile = workingDir.resolve("text.png");
+		this.featuredBackgroundFile = workingDir.resolve("featured-background.png");
+	}
+
+	@Override
+	public String version() {
+		return "imagick-1";
+	}
+
+	@Override
+	public void createBackground(String color) throws IOException {
+		imagick("-size 512x512 xc:none -fill ${color} -draw \"circle 256,256 256,1\" ${file}", color, backgroundFile);
+	}
+
+	@Override
+	public boolean isLightBackground() throws IOException {
+		return imagick(BrightnessResult.class, "${file} -colorspace Gray -format \"%[mean]\" info:", backgroundFile).isLightColor();
+	}
+
+	@Override
+	public void applyLightEffect() throws IOException {
+		imagick("-size 512x512 canvas:none -draw \"circle 256,256 256,146\" -negate -channel A -gaussian-blur 0x80 ${file}", lightEffectFile);
+		imagick("-composite -compose atop -geometry -95-124 ${source} ${effect} ${target}", backgroundFile, lightEffectFile, backgroundFile);
+		Files.delete(lightEffectFile);
+	}
+
+	@Override
+	public void createText(String color, String label, boolean sphereEffect) throws IOException {
+		this.sphereEffect = sphereEffect;
+		if (sphereEffect) {
+			imagick("-size 512x512 -background transparent -fill ${color} -pointsize 300 -wave 50x1024 -gravity center caption:${label} ${file}", color, label, textFile);
+		} else {
+			imagick("-size 512x512 -background transparent -fill ${color} -pointsize 256 -gravity center caption:${label} ${file}", color, label, textFile);
+		}
+	}
+
+	@Override
+	public void composeIcon(Path iconFile) throws IOException {
+		if (sphereEffect) {
+			imagick("-composite -geometry -0-50 ${background} ${text} ${icon}", backgroundFile, textFile, iconFile);
+		} else {
+			imagick("-composite ${background} ${text} ${icon}", backgroundFile, textFile, iconFile);
+		}
+		Files.delete(backgroundFile);
+		Files.delete(textFile);
+	}
+
+	@Override
+	public void createFeaturedBackground() throws IOException {
+		// reverse order of width and height because of -rotate 90
+		imagick("-size 500x952 xc:red -colorspace HSB gradient: -compose CopyRed -composite -colorspace RGB -rotate 90.0 ${file}", featuredBackgroundFile);
+		imagick("${source} -brightness-contrast -30x-40 ${target}", featuredBackgroundFile, featuredBackgroundFile);
+	}
+
+	@Override
+	public void composeFeatured(Path iconFile, Path featuredFile) throws IOException {
+		// offset +122 is adjusted for icon size of 256: (500 - 256) / 2
+		imagick("-composite -compose atop -geometry +122+122 ${background} ${icon} ${featured}", featuredBackgroundFile, iconFile, featuredFile);
+		Files.delete(featuredBackgroundFile);
+	}
+
+	@Override
+	public void resize(Path sourceFile, SortedMap<Integer, Path> targetFiles, boolean quality) throws IOException {
+		// single convert process: source is decoded once and every variant is written with -write; quality mode resizes
+		// a memory copy of the source for each variant whereas default mode resizes previous, larger, variant
+		StringBuilder command = new StringBuilder("${source}");
+		List<Object> args = new ArrayList<>();
+		args.add(sourceFile);
+		if (quality) {
+			command.append(" -write mpr:source +delete");
+		}
+
+		Iterator<Map.Entry<Integer, Path>> iterator = targetFiles.entrySet().iterator();
+		for (int index = 0; iterator.hasNext(); ++index) {
+			Map.Entry<Integer, Path> entry = iterator.next();
+			if (quality && index > 0) {
+				command.append(" +delete");
+			}
+			if (quality) {
+				command.append(" mpr:source");
+			}
+			command.append(" -resize ${size").append(index).append("}");
+			args.add(entry.getKey() + "x" + entry.getKey());
+			command.append(iterator.hasNext() ? " -write ${file" : " ${file").append(index).append("}");
+			args.add(entry.getValue());
+		}
+		imagick(command.toString(), args.toArray());
+	}
+
+	@Override
+	public void close() throws IOException {
+		// temporary files are left behind only if a step failed
+		Files.deleteIfExists(backgroundFile);
+		Files.deleteIfExists(lightEffectFile);
+		Files.deleteIfExists(textFile);
+		Files.deleteIfExists(featuredBackgroundFile);
+	}
+
+	private void imagick(String command, Object... args) throws IOException {
+		imagick(null, command, args);
+	}
+
+	private <T extends IResultParser> T imagick(Class<T> resultType, String parameterizedCommand, Object... args) throws IOException {
+		// convert process instance is not shared since steps are executed concurrently
+		ImageMagickProcess convert = new ConvertProcess();
+		String command = buildCommand(parameterizedCommand, args);
+		if (verbose) {
+			console.print(command);
+			convert.setConsole(console);
+		}
+		convert.setTimeout(30000L);
+		if (resultType == null) {
+			convert.exec(command);
+			return null;
+		}
+		return convert.exec(command, resultType);
+	}
+
+	private static class BrightnessResult implements IResultParser {
+		// this value is determined heuristically
+		private static final double LIGH_COLOR_THRESHOLD = 30000;
+
+		private double brightness;
+
+		public boolean isLightColor() {
+			return brightness >= LIGH_COLOR_THRESHOLD;
+		}
+
+		@Override
+		public void parse(String line) {
+			brightness = Double.parseDouble(line);
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package com.jslib.wtf.cli.icons;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.imageio.ImageIO;
+
+import com.jslib.commons.cli.Console;
+
+// in-process renderer that draws intermediate images in memory and encodes only final icons; it follows ImageMagick
+// commands used by imagick renderer so that both produce similar icons
+class Java2DRenderer implements IconRenderer {
+	private static final int ICON_SIZE = 512;
+	private static final int FEATURED_WIDTH = 952;
+	private static final int FEATURED_HEIGHT = 500;
+	private static final int LIGHT_EFFECT_SCALE = 4;
+
+	// mean gray, on 16 bits, above which background is considered light; the same as imagick renderer threshold
+	private static final double LIGHT_COLOR_THRESHOLD = 30000;
+
+	private final Console console;
+	private final boolean verbose;
+
+	private volatile BufferedImage background;
+	private volatile BufferedImage text;
+	private volatile BufferedImage featuredBackground;
+
+	public Java2DRenderer(Console console, boolean verbose) {
+		this.console = console;
+		this.verbose = verbose;
+	}
+
+	@Override
+	public String version() {
+		return "java2d-1";
+	}
+
+	@Override
+	public void createBackground(String color) {
+		BufferedImage image = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = graphics(image);
+		g.setColor(ColorNames.parse(color));
+		// circle with center 256,256 and radius 255
+		g.fill(new Ellipse2D.Double(1, 1, 510, 510));
+		g.dispose();
+		background = image;
+	}
+
+	@Override
+	public boolean isLightBackground() {
+		// mean of Rec709 luma over all pixels, transparent ones included, as ImageMagick gray colorspace mean does
+		int[] pixels = background.getRGB(0, 0, ICON_SIZE, ICON_SIZE, null, 0, ICON_SIZE);
+		double sum = 0;
+		for (int pixel : pixels) {
+			sum += 0.212656 * ((pixel >> 16) & 0xFF) + 0.715158 * ((pixel >> 8) & 0xFF) + 0.072186 * (pixel & 0xFF);
+		}
+		return sum / pixels.length * 257 >= LIGHT_COLOR_THRESHOLD;
+	}
+
+	@Override
+	public void applyLightEffect() {
+		// white disc with radius 110 and alpha channel blurred with sigma 80, composed atop background at -95-124; blurred
+		// mask is smooth enough to be computed on a quarter scale and interpolated back to icon size
+		int size = ICON_SIZE / LIGHT_EFFECT_SCALE;
+		double center = size / 2.0;
+		double radius = 110.0 / LIGHT_EFFECT_SCALE;
+		float[] alpha = new float[size * size];
+		for (int y = 0; y < size; ++y) {
+			for (int x = 0; x < size; ++x) {
+				double dx = x + 0.5 - center, dy = y + 0.5 - center;
+				alpha[y * size + x] = dx * dx + dy * dy <= radius * radius ? 1.0F : 0.0F;
+			}
+		}
+		alpha = gaussianBlur(alpha, size, size, 80.0 / LIGHT_EFFECT_SCALE);
+
+		BufferedImage effect = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < size; ++y) {
+			for (int x = 0; x < size; ++x) {
+				int a = Math.round(Math.min(1.0F, alpha[y * size + x]) * 255);
+				effect.setRGB(x, y, (a << 24) | 0xFFFFFF);
+			}
+		}
+
+		Graphics2D g = graphics(background);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setComposite(AlphaComposite.SrcAtop);
+		g.drawImage(effect, -95, -124, ICON_SIZE, ICON_SIZE, null);
+		g.dispose();
+	}
+
+	@Override
+	public void createText(String color, String label, boolean sphereEffect) {
+		BufferedImage image = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = graphics(image);
+		g.setColor(ColorNames.parse(color));
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, sphereEffect ? 300 : 256));
+		FontMetrics metrics = g.getFontMetrics();
+		int x = (ICON_SIZE - metrics.stringWidth(label)) / 2;
+		int y = (ICON_SIZE - metrics.getHeight()) / 2 + metrics.getAscent();
+		g.drawString(label, x, y);
+		g.dispose();
+		text = sphereEffect ? wave(image, 50, 1024) : image;
+	}
+
+	@Override
+	public void composeIcon(Path iconFile) throws IOException {
+		BufferedImage icon = copy(background);
+		Graphics2D g = graphics(icon);
+		g.drawImage(text, 0, 0, null);
+		g.dispose();
+		write(icon, iconFile);
+
+		background = null;
+		text = null;
+	}
+
+	@Override
+	public void createFeaturedBackground() {
+		// hue gradient from left to right with full saturation and brightness, followed by brightness-contrast -30x-40
+		double slope = Math.tan(Math.PI * (-40 / 100.0 + 1) / 4);
+		double intercept = -30 / 100.0 + ((100 + 30) / 200.0) * (1 - slope);
+
+		BufferedImage image = new BufferedImage(FEATURED_WIDTH, FEATURED_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		for (int x = 0; x < FEATURED_WIDTH; ++x) {
+			int rgb = Color.HSBtoRGB(x / (float) (FEATURED_WIDTH - 1), 1.0F, 1.0F);
+			int r = level((rgb >> 16) & 0xFF, slope, intercept);
+			int g = level((rgb >> 8) & 0xFF, slope, intercept);
+			int b = level(rgb & 0xFF, slope, intercept);
+			int pixel = 0xFF000000 | (r << 16) | (g << 8) | b;
+			for (int y = 0; y < FEATURED_HEIGHT; ++y) {
+				image.setRGB(x, y, pixel);
+			}
+		}
+		featuredBackground = image;
+	}
+
+	@Override
+	public void composeFeatured(Path iconFile, Path featuredFile) throws IOException {
+		BufferedImage icon = read(iconFile);
+		Graphics2D g = graphics(featuredBackground);
+		// offset +122 is adjusted for icon size of 256: (500 - 256) / 2
+		g.drawImage(icon, 122, 122, null);
+		g.dispose();
+		write(featuredBackground, featuredFile);
+		featuredBackground = null;
+	}
+
+	@Override
+	public void resize(Path sourceFile, SortedMap<Integer, Path> targetFiles, boolean quality) throws IOException {
+		// every variant is scaled from the smallest halving level not below its size; since levels are the same ones
+		// progressive scaling of source would compute, reusing them does not change output; quality flag is ignored and
+		// create icons task does not set it for this renderer
+		BufferedImage level = read(sourceFile);
+		List<Map.Entry<BufferedImage, Path>> variants = new ArrayList<>();
+		for (Map.Entry<Integer, Path> entry : targetFiles.entrySet()) {
+			int size = entry.getKey();
+			while (level.getWidth() / 2 >= size) {
+				level = draw(level, level.getWidth() / 2);
+			}
+			BufferedImage variant = level.getWidth() != size ? draw(level, size) : level;
+			variants.add(new AbstractMap.SimpleEntry<>(variant, entry.getValue()));
+		}
+
+		// PNG encoding dominates resize cost and is done in parallel
+		try {
+			variants.parallelStream().forEach(variant -> {
+				try {
+					write(variant.getKey(), variant.getValue());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	@Override
+	public void close() {
+		background = null;
+		text = null;
+		featuredBackground = null;
+	}
+
+	private void write(BufferedImage image, Path file) throws IOException {
+		if (verbose) {
+			console.print("Create %s.", file);
+		}
+		if (!ImageIO.write(image, "png", file.toFile())) {
+			throw new IOException("No PNG image writer.");
+		}
+	}
+
+	static BufferedImage read(Path file) throws IOException {
+		BufferedImage image = ImageIO.read(file.toFile());
+		if (image == null) {
+			throw new IOException("Not supported image format " + file);
+		}
+		return image;
+	}
+
+	private static BufferedImage draw(BufferedImage image, int size) {
+		BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, size, size, null);
+		g.dispose();
+		return scaled;
+	}
+
+	private static Graphics2D graphics(BufferedImage image) {
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		return g;
+	}
+
+	private static BufferedImage copy(BufferedImage image) {
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = copy.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+
+	private static int level(int value, double slope, double intercept) {
+		double level = slope * (value / 255.0) + intercept;
+		return (int) Math.round(Math.max(0, Math.min(1, level)) * 255);
+	}
+
+	// vertical sine displacement of every column; ImageMagick -wave also grows image height by twice the amplitude and
+	// shifts columns down by amplitude, shift taken back by -50 geometry offset when composing icon, so the net effect
+	// is the sine displacement alone, on an image that keeps its size
+	private static BufferedImage wave(BufferedImage image, double amplitude, double waveLength) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		BufferedImage waved = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int x = 0; x < width; ++x) {
+			double offset = amplitude * Math.sin(2 * Math.PI * x / waveLength);
+			for (int y = 0; y < height; ++y) {
+				int sourceY = (int) Math.round(y - offset);
+				if (sourceY >= 0 && sourceY < height) {
+					waved.setRGB(x, y, image.getRGB(x, sourceY));
+				}
+			}
+		}
+		return waved;
+	}
+
+	// separable gaussian blur with edge pixels replicated, as ImageMagick default virtual pixel method
+	private static float[] gaussianBlur(float[] values, int width, int height, double sigma) {
+		int radius = (int) Math.ceil(3 * sigma);
+		float[] kernel = new float[2 * radius + 1];
+		float sum = 0;
+		for (int i = -radius; i <= radius; ++i) {
+			kernel[i + radius] = (float) Math.exp(-(i * i) / (2 * sigma * sigma));
+			sum += kernel[i + radius];
+		}
+		for (int i = 0; i < kernel.length; ++i) {
+			kernel[i] /= sum;
+		}
+
+		float[] horizontal = new float[values.length];
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				float value = 0;
+				for (int i = -radius; i <= radius; ++i) {
+					int sx = Math.max(0, Math.min(width - 1, x + i));
+					value += kernel[i + radius] * values[y * width + sx];
+				}
+				horizontal[y * width + x] = value;
+			}
+		}
+
+		float[] blurred = new float[values.length];
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				float value = 0;
+				for (int i = -radius; i <= radius; ++i) {
+					int sy = Math.max(0, Math.min(height - 1, y + i));
+					value += kernel[i + radius] * horizontal[sy * width + x];
+				}
+				blurred[y * width + x] = value;
+			}
+		}
+		return blurred;
+	}
+}
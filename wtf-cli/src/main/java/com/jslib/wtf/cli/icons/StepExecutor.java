@@ -0,0 +1,55 @@
+package com.jslib.wtf.cli.icons;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// runs steps on a thread pool as soon as all their dependencies complete; a failed step fails all its dependents
+class StepExecutor implements AutoCloseable {
+	private final ExecutorService executor;
+
+	public StepExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public StepExecutor(int threads) {
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+
+	public CompletableFuture<Void> submit(Step step, CompletableFuture<?>... dependencies) {
+		return CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+			try {
+				step.run();
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	public void await(CompletableFuture<?>... steps) throws Exception {
+		try {
+			CompletableFuture.allOf(steps).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	public static CompletableFuture<Void> done() {
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@FunctionalInterface
+	public interface Step {
+		void run() throws Exception;
+	}
+}
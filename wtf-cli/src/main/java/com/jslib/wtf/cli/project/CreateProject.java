@@ -2,15 +2,13 @@ package com.jslib.wtf.cli.project;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import com.jslib.commons.cli.ExitCode;
-import com.jslib.commons.cli.Home;
 import com.jslib.commons.cli.Task;
-import com.jslib.commons.cli.TemplateProcessor;
+import com.jslib.wtf.cli.template.TemplateProcessor;
 
-import js.util.Strings;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -36,31 +34,25 @@ public class CreateProject extends Task {
 		}
 		console.print("Creating project %s.", projectName);
 
-		Path homeDir = files.getPath(Home.getPath());
-		Path templateDir = homeDir.resolve("template/project");
-
-		Map<String, String> variables = new HashMap<>();
-		variables.put("projectName", projectName);
-		variables.put("technology", console.input("technology", config.get("project.technology")));
 		String type = console.input("project type");
-
-		Path templateFile = templateDir.resolve(Strings.concat(type, ".zip"));
+		Path templateFile = ProjectVariables.templateFile(files, type);
 		if (!files.exists(templateFile)) {
 			console.print("Missing template %s.", templateFile);
 			console.print("Command abort.");
 			return ExitCode.ABORT;
 		}
 
-		variables.put("author", console.input("developer name", config.get("user.name")));
-		variables.put("package", console.input("package name", projectName));
-		variables.put("packagePath", variables.get("package").replace('.', '/'));
-		variables.put("build", console.input("build directory", "build"));
-		variables.put("title", console.input("site title", projectName));
-		variables.put("description", console.input("project short description", projectName));
-		variables.put("locale", console.input("list of comma separated locale", "en"));
+		Map<String, String> variables = ProjectVariables.create(config, projectName, (name, prompt, defaultValue) -> console.input(prompt, defaultValue));
+		Set<String> missingVariables = ProjectVariables.missing(template, type, variables);
+		if (!missingVariables.isEmpty()) {
+			console.print("Template %s uses undefined variables %s.", templateFile, missingVariables);
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
 
 		files.createDirectory(projectDir);
 		template.setTargetDir(projectDir.toFile());
+		template.setConsole(console);
 		template.setVerbose(verbose);
 		template.exec("project", type, variables);
 
@@ -0,0 +1,197 @@
+package com.jslib.wtf.cli.project;
+
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Task;
+import com.jslib.wtf.cli.template.TemplateProcessor;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "projects", description = "Create projects described by CSV file into current directory.")
+public class CreateProjects extends Task {
+	// project name is a single path segment
+	private static final Pattern NAME_PATTERN = Pattern.compile("^[^/\\\\:]+$");
+
+	@Option(names = { "-t", "--threads" }, description = "Number of projects created in parallel. Default: number of processors.")
+	private int threadsCount = Runtime.getRuntime().availableProcessors();
+	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about created files.")
+	private boolean verbose;
+
+	@Parameters(index = "0", description = "CSV file with header line naming columns: name, type, technology, author, package, build, title, description and locale. Only name and type are mandatory.", paramLabel = "file")
+	private String specsFile;
+
+	@Override
+	protected ExitCode exec() throws Exception {
+		Path workingDir = files.getWorkingDir();
+		Path specsPath = workingDir.resolve(specsFile);
+		if (!files.exists(specsPath)) {
+			console.print("Missing projects file %s.", specsPath);
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+
+		List<Map<String, String>> specs = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(specsPath, StandardCharsets.UTF_8)) {
+			List<String> header = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				List<String> values = values(line);
+				if (header == null) {
+					header = values;
+					continue;
+				}
+				Map<String, String> spec = new HashMap<>();
+				for (int i = 0; i < header.size() && i < values.size(); ++i) {
+					if (!values.get(i).isEmpty()) {
+						spec.put(header.get(i).trim(), values.get(i));
+					}
+				}
+				specs.add(spec);
+			}
+		}
+
+		// projects are created concurrently and checked for existing directory before creating it; names are validated up
+		// front so that two specs never write into the same directory and no project escapes working directory
+		Set<String> names = new HashSet<>();
+		for (Map<String, String> spec : specs) {
+			String name = spec.get("name");
+			if (name == null || spec.get("type") == null) {
+				console.print("Bad project spec %s. Missing name or type.", spec);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+			if (!NAME_PATTERN.matcher(name).matches() || name.equals(".") || name.equals("..")) {
+				console.print("Bad project name %s. Should be a directory name.", name);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+			if (!names.add(name)) {
+				console.print("Duplicate project name %s.", name);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+		}
+
+		console.print("Creating %d projects...", specs.size());
+		// loaded templates are shared by all projects; every template is parsed only once
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadsCount));
+		int failedCount = 0;
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (Map<String, String> spec : specs) {
+				futures.add(executor.submit(() -> {
+					createProject(workingDir, spec);
+					return null;
+				}));
+			}
+
+			for (int i = 0; i < specs.size(); ++i) {
+				String projectName = specs.get(i).get("name");
+				try {
+					futures.get(i).get();
+					console.print("Created project %s.", projectName);
+				} catch (ExecutionException e) {
+					console.print("Fail to create project %s: %s", projectName, e.getCause());
+					++failedCount;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (failedCount > 0) {
+			console.print("%d of %d projects failed.", failedCount, specs.size());
+			return ExitCode.ABORT;
+		}
+		return ExitCode.SUCCESS;
+	}
+
+	private void createProject(Path workingDir, Map<String, String> spec) throws IOException {
+		String projectName = spec.get("name");
+		Path projectDir = workingDir.resolve(projectName);
+		if (files.exists(projectDir)) {
+			throw new IOException(format("Project directory %s already existing.", projectDir));
+		}
+
+		String type = spec.get("type");
+		Path templateFile = ProjectVariables.templateFile(files, type);
+		if (!files.exists(templateFile)) {
+			throw new IOException(format("Missing template %s.", templateFile));
+		}
+
+		// the same defaults as interactive project creation
+		Map<String, String> variables = ProjectVariables.create(config, projectName, (name, prompt, defaultValue) -> spec.getOrDefault(name, defaultValue));
+		TemplateProcessor template = new TemplateProcessor();
+		Set<String> missingVariables = ProjectVariables.missing(template, type, variables);
+		if (!missingVariables.isEmpty()) {
+			throw new IOException(format("Template %s uses undefined variables %s.", templateFile, missingVariables));
+		}
+
+		files.createDirectory(projectDir);
+		template.setTargetDir(projectDir.toFile());
+		template.setConsole(console);
+		template.setVerbose(verbose);
+		template.exec("project", type, variables);
+	}
+
+	// CSV line values; double quoted values may contain commas and escaped, that is, doubled double quotes
+	static List<String> values(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); ++i) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					++i;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					value.append(c);
+				}
+				continue;
+			}
+			if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString().trim());
+		return values;
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// Test support
+
+	void setSpecsFile(String specsFile) {
+		this.specsFile = specsFile;
+	}
+}
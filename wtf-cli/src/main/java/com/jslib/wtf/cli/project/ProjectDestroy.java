@@ -6,7 +6,10 @@ import java.io.IOException;
 import java.nio.file.Path;
 
 import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
 import com.jslib.commons.cli.Task;
+import com.jslib.wtf.cli.trash.Progress;
+import com.jslib.wtf.cli.trash.Trash;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Model.CommandSpec;
@@ -22,12 +25,16 @@ public class ProjectDestroy extends Task {
 
 	@Option(names = "--force-destroy", description = "Force destroy even if project description not found.")
 	private boolean force;
-	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about deleted files.")
+	@Option(names = { "-w", "--wait" }, description = "Wait for files deletion, with progress printouts. By default files are deleted in background.")
+	private boolean wait;
+	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about deleted files. Used only with --wait option.")
 	private boolean verbose;
 
 	@Parameters(index = "0", description = "Project name, relative to current working directory.")
 	private String name;
 
+	private Trash trash;
+
 	@Override
 	protected ExitCode exec() throws IOException  {
 		Path workingDir = files.getWorkingDir();
@@ -55,8 +62,22 @@ public class ProjectDestroy extends Task {
 		}
 
 		console.print("Destroying files for project %s...", projectDir);
-		files.cleanDirectory(projectDir, verbose);
+		if (trash == null) {
+			trash = new Trash(files.getPath(Home.getPath()));
+		}
+		// project directory is renamed aside so that project name is free to reuse at once
+		Path trashDir = trash.discard(projectDir);
+		if (!wait) {
+			trash.sweepBackground();
+			return ExitCode.SUCCESS;
+		}
 
+		Progress progress = new Progress(verbose ? file -> console.print("Delete file %s.", file) : null);
+		trash.delete(trashDir, progress, state -> console.print("Deleted %d files...", state.getFilesCount()));
+		console.print("Deleted %d files, %d bytes.", progress.getFilesCount(), progress.getBytesCount());
+		if (progress.getErrorsCount() > 0) {
+			console.print("Fail to delete %d files. They will be deleted on next WTF run.", progress.getErrorsCount());
+		}
 		return ExitCode.SUCCESS;
 	}
 
@@ -74,4 +95,12 @@ public class ProjectDestroy extends Task {
 	void setName(String name) {
 		this.name = name;
 	}
+
+	void setWait(boolean wait) {
+		this.wait = wait;
+	}
+
+	void setTrash(Trash trash) {
+		this.trash = trash;
+	}
 }
@@ -0,0 +1,55 @@
+package com.jslib.wtf.cli.project;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.jslib.commons.cli.Config;
+import com.jslib.commons.cli.FilesUtil;
+import com.jslib.commons.cli.Home;
+import com.jslib.wtf.cli.template.TemplateProcessor;
+
+import js.util.Strings;
+
+// project template variables with defaults shared by interactive and batch project creation; values come from a source,
+// that is, console input or projects file columns
+final class ProjectVariables {
+	private ProjectVariables() {
+	}
+
+	public static Path templateFile(FilesUtil files, String type) {
+		return files.getPath(Home.getPath()).resolve("template/project").resolve(Strings.concat(type, ".zip"));
+	}
+
+	public static Map<String, String> create(Config config, String projectName, Source source) {
+		Map<String, String> variables = new HashMap<>();
+		variables.put("projectName", projectName);
+		variables.put("technology", source.get("technology", "technology", config.get("project.technology")));
+		variables.put("author", source.get("author", "developer name", config.get("user.name")));
+		variables.put("package", source.get("package", "package name", projectName));
+		variables.put("packagePath", variables.get("package").replace('.', '/'));
+		// legacy templates use dashed variable names
+		variables.put("package-path", variables.get("packagePath"));
+		variables.put("build", source.get("build", "build directory", "build"));
+		variables.put("title", source.get("title", "site title", projectName));
+		variables.put("description", source.get("description", "project short description", projectName));
+		variables.put("locale", source.get("locale", "list of comma separated locale", "en"));
+		return variables;
+	}
+
+	// template variables not defined by project variables; validate before creating project directory so that a bad
+	// template does not leave partial project
+	public static Set<String> missing(TemplateProcessor template, String type, Map<String, String> variables) throws IOException {
+		Set<String> missingVariables = new TreeSet<>(template.getVariables("project", type));
+		missingVariables.removeAll(variables.keySet());
+		return missingVariables;
+	}
+
+	public interface Source {
+		// value for given variable name, with prompt for interactive input
+		String get(String name, String prompt, String defaultValue);
+	}
+}
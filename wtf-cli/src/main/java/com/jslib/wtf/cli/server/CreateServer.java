@@ -8,7 +8,7 @@ import java.util.Map;
 
 import com.jslib.commons.cli.ExitCode;
 import com.jslib.commons.cli.Task;
-import com.jslib.commons.cli.TemplateProcessor;
+import com.jslib.wtf.cli.template.TemplateProcessor;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Model.CommandSpec;
@@ -51,6 +51,7 @@ public class CreateServer extends Task {
 		variables.put("port", Integer.toString(port));
 
 		template.setTargetDir(runtimeDir);
+		template.setConsole(console);
 		template.setVerbose(verbose);
 		template.exec("runtime", type, variables);
 
@@ -3,12 +3,12 @@ package com.jslib.wtf.cli.server;
 import static java.lang.String.format;
 
 import java.io.File;
-import java.io.IOException;
 
 import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
 import com.jslib.commons.cli.Task;
+import com.jslib.wtf.cli.trash.Trash;
 
-import js.util.Files;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.ParameterException;
@@ -36,10 +36,11 @@ public class ServerDestroy extends Task {
 		}
 
 		console.print("Destroying runtime %s...", name);
-		Files.removeFilesHierarchy(runtimeDir);
-		if (!runtimeDir.delete()) {
-			throw new IOException(format("Cannot remove runtime directory %s.", runtimeDir));
-		}
+		// runtime directory is renamed aside at once and its files, logs and deployed applications included, deleted
+		// in background
+		Trash trash = new Trash(files.getPath(Home.getPath()));
+		trash.discard(runtimeDir.toPath());
+		trash.sweepBackground();
 
 		config.remove("runtime.name");
 		config.remove("runtime.port");
@@ -0,0 +1,181 @@
+package com.jslib.wtf.cli.template;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+
+// unpacked template archive with Velocity engine loading templates from unpacked files; engine resource cache keeps
+// parsed templates so that repeated use of the same template only renders
+//
+// files with .vtl extension are Velocity templates and files with ! prefix are legacy templates with ${variable}
+// expressions only; all others are verbatim files, copied from unpacked archive; ${variable} expressions from entry
+// path are resolved for all files
+//
+// template files are created in parallel and a template instance is safe to use from concurrent threads
+class Template {
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
+	private static final int MAX_THREADS = 8;
+
+	private final Path filesDir;
+	private final List<TemplateEntry> entries;
+	private final VelocityEngine engine;
+
+	public Template(Path filesDir, List<TemplateEntry> entries) {
+		this.filesDir = filesDir;
+		this.entries = entries;
+
+		Properties properties = new Properties();
+		properties.setProperty(RuntimeConstants.RESOURCE_LOADERS, "file");
+		properties.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_PATH, filesDir.toAbsolutePath().toString());
+		properties.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_CACHE, "true");
+		// cached files are never modified after unpack
+		properties.setProperty("resource.loader.file.modification_check_interval", "0");
+		this.engine = new VelocityEngine(properties);
+	}
+
+	// variables required by this template; legacy template files leave unknown variables unchanged and require only the
+	// variables from their path
+	public Set<String> getVariables() {
+		Set<String> variables = new TreeSet<>();
+		for (TemplateEntry entry : entries) {
+			if (entry.getKind() != TemplateEntry.Kind.LEGACY) {
+				variables.addAll(entry.getVariables());
+				continue;
+			}
+			Matcher matcher = VARIABLE_PATTERN.matcher(entry.getName());
+			while (matcher.find()) {
+				variables.add(matcher.group(1));
+			}
+		}
+		return variables;
+	}
+
+	// return created files, in template entries order
+	public List<Path> exec(Path targetDir, Map<String, String> variables) throws IOException {
+		Map<TemplateEntry, Path> targetFiles = new LinkedHashMap<>();
+		Set<Path> directories = new HashSet<>();
+		for (TemplateEntry entry : entries) {
+			Path targetFile = targetDir.resolve(targetPath(entry.getName(), variables));
+			targetFiles.put(entry, targetFile);
+			directories.add(targetFile.getParent());
+		}
+		// create directories tree up front so that workers only create files
+		for (Path directory : directories) {
+			Files.createDirectories(directory);
+		}
+
+		int threadsCount = Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			targetFiles.forEach((entry, targetFile) -> futures.add(executor.submit(() -> {
+				create(entry, targetFile, variables);
+				return null;
+			})));
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			return new ArrayList<>(targetFiles.values());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted template processing.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void create(TemplateEntry entry, Path targetFile, Map<String, String> variables) throws IOException {
+		if (entry.getKind() == TemplateEntry.Kind.VELOCITY) {
+			VelocityContext context = new VelocityContext(new HashMap<>(variables));
+			try (Writer writer = Files.newBufferedWriter(targetFile, StandardCharsets.UTF_8)) {
+				engine.getTemplate(entry.getName(), "UTF-8").merge(context, writer);
+			}
+			return;
+		}
+
+		Path sourceFile = filesDir.resolve(entry.getName());
+		if (entry.getKind() == TemplateEntry.Kind.LEGACY) {
+			// unknown variables are left unchanged, as in legacy templates
+			String text = new String(Files.readAllBytes(sourceFile), StandardCharsets.UTF_8);
+			Files.write(targetFile, resolve(text, variables::get).getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		// channel transfer lets the kernel copy, or clone where file system supports it, without user space buffers
+		try (FileChannel source = FileChannel.open(sourceFile, StandardOpenOption.READ); FileChannel target = FileChannel.open(targetFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			long size = source.size();
+			long position = 0;
+			while (position < size) {
+				position += source.transferTo(position, size - position, target);
+			}
+		}
+	}
+
+	private static String targetPath(String entry, Map<String, String> variables) {
+		String fileName = fileName(entry);
+		String path = entry.substring(0, entry.length() - fileName.length());
+		if (fileName.startsWith("!")) {
+			fileName = fileName.substring(1);
+		}
+		if (fileName.endsWith(".vtl")) {
+			fileName = fileName.substring(0, fileName.length() - 4);
+		}
+
+		return resolve(path + fileName, name -> {
+			String value = variables.get(name);
+			if (value == null) {
+				throw new IllegalArgumentException(format("Missing variable %s for template file %s.", name, entry));
+			}
+			return value;
+		});
+	}
+
+	private static String resolve(String text, Function<String, String> variables) {
+		Matcher matcher = VARIABLE_PATTERN.matcher(text);
+		StringBuffer builder = new StringBuffer();
+		while (matcher.find()) {
+			String value = variables.apply(matcher.group(1));
+			matcher.appendReplacement(builder, Matcher.quoteReplacement(value != null ? value : matcher.group()));
+		}
+		matcher.appendTail(builder);
+		return builder.toString();
+	}
+
+	private static String fileName(String entry) {
+		return entry.substring(entry.lastIndexOf('/') + 1);
+	}
+}
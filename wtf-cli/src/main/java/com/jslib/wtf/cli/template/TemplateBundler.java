@@ -0,0 +1,100 @@
+package com.jslib.wtf.cli.template;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// build time tool used by WTF assembly to create template archives; every type directory from every category directory
+// of source templates directory is bundled into category/type.zip from target directory
+//
+// template archive starts with manifest listing all entries, already classified, with their variables; already
+// compressed files are stored uncompressed
+public class TemplateBundler {
+	private static final Set<String> COMPRESSED_FILES = new HashSet<>(Arrays.asList("png", "jpg", "jpeg", "gif", "webp", "ico", "woff", "woff2", "gz", "zip", "jar", "mp3", "mp4", "ogg"));
+
+	public static void main(String... args) throws IOException {
+		// executed in build tool JVM; do not exit on bad usage
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: TemplateBundler source-dir target-dir");
+		}
+
+		Path sourceDir = Paths.get(args[0]);
+		Path targetDir = Paths.get(args[1]);
+		for (Path categoryDir : directories(sourceDir)) {
+			for (Path typeDir : directories(categoryDir)) {
+				Path targetFile = targetDir.resolve(categoryDir.getFileName().toString()).resolve(typeDir.getFileName() + ".zip");
+				System.out.printf("Bundle template %s%n", targetFile);
+				bundle(typeDir, targetFile);
+			}
+		}
+	}
+
+	public static void bundle(Path sourceDir, Path targetFile) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(sourceDir)) {
+			files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		List<String> manifest = new ArrayList<>();
+		for (Path file : files) {
+			manifest.add(TemplateEntry.scan(entryName(sourceDir, file), Files.readAllBytes(file)).toString());
+		}
+
+		Files.createDirectories(targetFile.getParent());
+		try (ZipOutputStream zipStream = new ZipOutputStream(Files.newOutputStream(targetFile))) {
+			write(zipStream, TemplateEntry.MANIFEST, String.join("\n", manifest).getBytes(StandardCharsets.UTF_8), false);
+			for (Path file : files) {
+				String entryName = entryName(sourceDir, file);
+				String extension = entryName.substring(entryName.lastIndexOf('.') + 1).toLowerCase();
+				write(zipStream, entryName, Files.readAllBytes(file), COMPRESSED_FILES.contains(extension));
+			}
+		}
+	}
+
+	private static void write(ZipOutputStream zipStream, String entryName, byte[] content, boolean stored) throws IOException {
+		ZipEntry zipEntry = new ZipEntry(entryName);
+		if (stored) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			zipEntry.setMethod(ZipEntry.STORED);
+			zipEntry.setSize(content.length);
+			zipEntry.setCompressedSize(content.length);
+			zipEntry.setCrc(crc.getValue());
+		}
+		zipStream.putNextEntry(zipEntry);
+		zipStream.write(content);
+		zipStream.closeEntry();
+	}
+
+	private static String entryName(Path sourceDir, Path file) {
+		// zip entries use forward slash regardless of platform
+		return sourceDir.relativize(file).toString().replace('\\', '/');
+	}
+
+	private static List<Path> directories(Path dir) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			throw new IOException(format("Missing templates directory %s.", dir));
+		}
+		List<Path> directories = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
+			stream.forEach(directories::add);
+		}
+		directories.sort(null);
+		return directories;
+	}
+}
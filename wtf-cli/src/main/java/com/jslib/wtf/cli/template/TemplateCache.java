@@ -0,0 +1,110 @@
+package com.jslib.wtf.cli.template;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.jslib.wtf.cli.Hash;
+
+// unpacked template archives shared by all projects of a WTF install; cache entry directory is named after archive
+// content hash and contains unpacked files and the index of archive entries, in template manifest format
+//
+// an updated archive gets a new cache entry; cache entries are never modified after creation
+class TemplateCache {
+	private static final String INDEX_FILE = "index";
+	private static final String FILES_DIR = "files";
+
+	// templates loaded in this JVM, with parsed Velocity templates, reused by daemon and batch runs
+	private static final Map<Path, Template> templates = new ConcurrentHashMap<>();
+
+	private final Path cacheDir;
+
+	public TemplateCache(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	public Template get(Path archiveFile) throws IOException {
+		Path entryDir = cacheDir.resolve(Hash.sha256Hex(archiveFile));
+		Template template = templates.get(entryDir);
+		if (template != null) {
+			return template;
+		}
+
+		if (!Files.exists(entryDir)) {
+			unpack(archiveFile, entryDir);
+		}
+		List<TemplateEntry> entries = new ArrayList<>();
+		for (String line : Files.readAllLines(entryDir.resolve(INDEX_FILE), StandardCharsets.UTF_8)) {
+			entries.add(TemplateEntry.parse(line));
+		}
+		return templates.computeIfAbsent(entryDir, dir -> new Template(dir.resolve(FILES_DIR), entries));
+	}
+
+	private void unpack(Path archiveFile, Path entryDir) throws IOException {
+		Files.createDirectories(cacheDir);
+		// concurrent processes may unpack the same archive; publish with atomic rename so that readers see complete entries
+		Path tempDir = cacheDir.resolve(entryDir.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		Path filesDir = tempDir.resolve(FILES_DIR);
+
+		List<String> index = new ArrayList<>();
+		try (ZipFile zipFile = new ZipFile(archiveFile.toFile())) {
+			// bundled template archive has manifest with entries already classified; scan entries content otherwise
+			ZipEntry manifestEntry = zipFile.getEntry(TemplateEntry.MANIFEST);
+			if (manifestEntry != null) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(manifestEntry), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						index.add(line);
+					}
+				}
+			}
+
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry zipEntry = zipEntries.nextElement();
+				if (zipEntry.isDirectory() || zipEntry.getName().equals(TemplateEntry.MANIFEST)) {
+					continue;
+				}
+				Path file = filesDir.resolve(zipEntry.getName()).normalize();
+				if (!file.startsWith(filesDir)) {
+					throw new IOException(String.format("Invalid template archive %s. Entry %s outside archive.", archiveFile, zipEntry.getName()));
+				}
+				Files.createDirectories(file.getParent());
+				try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+					Files.copy(inputStream, file);
+				}
+				if (manifestEntry == null) {
+					index.add(TemplateEntry.scan(zipEntry.getName(), Files.readAllBytes(file)).toString());
+				}
+			}
+		}
+		Files.write(tempDir.resolve(INDEX_FILE), index, StandardCharsets.UTF_8);
+
+		try {
+			Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			if (!Files.exists(entryDir)) {
+				throw e;
+			}
+			// other process published the same entry meanwhile
+			try (Stream<Path> files = Files.walk(tempDir)) {
+				files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.jslib.wtf.cli.template;
+
+import static java.lang.String.format;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.jslib.wtf.cli.Hash;
+
+// template archive entry as listed by template manifest, one entry per line with tab separated fields: kind, size,
+// SHA-256 hash, comma separated variables and entry name
+class TemplateEntry {
+	public static final String MANIFEST = ".wtf-template";
+
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
+
+	public enum Kind {
+		VERBATIM, VELOCITY, LEGACY
+	}
+
+	private final String name;
+	private final Kind kind;
+	private final long size;
+	private final String hash;
+	private final Set<String> variables;
+
+	private TemplateEntry(String name, Kind kind, long size, String hash, Set<String> variables) {
+		this.name = name;
+		this.kind = kind;
+		this.size = size;
+		this.hash = hash;
+		this.variables = variables;
+	}
+
+	// classify entry and collect variables from entry name and, for templated entries, from content
+	public static TemplateEntry scan(String name, byte[] content) {
+		String fileName = name.substring(name.lastIndexOf('/') + 1);
+		Kind kind = name.endsWith(".vtl") ? Kind.VELOCITY : fileName.startsWith("!") ? Kind.LEGACY : Kind.VERBATIM;
+
+		Set<String> variables = new TreeSet<>();
+		collect(name, variables);
+		if (kind != Kind.VERBATIM) {
+			collect(new String(content, StandardCharsets.UTF_8), variables);
+		}
+		return new TemplateEntry(name, kind, content.length, Hash.sha256Hex(content), variables);
+	}
+
+	public static TemplateEntry parse(String line) {
+		String[] fields = line.split("\t", 5);
+		if (fields.length != 5) {
+			throw new IllegalArgumentException(format("Invalid template manifest line: %s", line));
+		}
+		Set<String> variables = fields[3].isEmpty() ? Collections.emptySet() : new TreeSet<>(Arrays.asList(fields[3].split(",")));
+		return new TemplateEntry(fields[4], Kind.valueOf(fields[0]), Long.parseLong(fields[1]), fields[2], variables);
+	}
+
+	@Override
+	public String toString() {
+		return format("%s\t%d\t%s\t%s\t%s", kind, size, hash, String.join(",", variables), name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public Set<String> getVariables() {
+		return variables;
+	}
+
+	private static void collect(String text, Set<String> variables) {
+		Matcher matcher = VARIABLE_PATTERN.matcher(text);
+		while (matcher.find()) {
+			variables.add(matcher.group(1));
+		}
+	}
+}
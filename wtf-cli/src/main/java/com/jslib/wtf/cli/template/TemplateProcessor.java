@@ -0,0 +1,61 @@
+package com.jslib.wtf.cli.template;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.jslib.commons.cli.Console;
+import com.jslib.commons.cli.Home;
+
+// create files from template archive ${wtf.home}/template/category/type.zip; template archive is unpacked and indexed
+// once, into ${wtf.home}/cache/template, and its Velocity templates parsed once per JVM
+public class TemplateProcessor {
+	private File targetDir;
+	private Console console;
+	private boolean verbose;
+
+	public void setTargetDir(File targetDir) {
+		this.targetDir = targetDir;
+	}
+
+	// console for verbose printouts about created files
+	public void setConsole(Console console) {
+		this.console = console;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	public Set<String> getVariables(String category, String type) throws IOException {
+		return template(category, type).getVariables();
+	}
+
+	public void exec(String category, String type, Map<String, String> variables) throws IOException {
+		// files are created by template worker threads and printed here, in template order, once all are created
+		List<Path> files = template(category, type).exec(targetDir.toPath(), variables);
+		if (verbose && console != null) {
+			for (Path file : files) {
+				console.print("Create file %s.", file);
+			}
+		}
+	}
+
+	private static Template template(String category, String type) throws IOException {
+		Path homeDir = Paths.get(Home.getPath());
+		Path archiveFile = homeDir.resolve("template").resolve(category).resolve(type + ".zip");
+		if (!Files.exists(archiveFile)) {
+			throw new IOException(format("Missing template %s.", archiveFile));
+		}
+
+		TemplateCache cache = new TemplateCache(homeDir.resolve("cache/template"));
+		return cache.get(archiveFile);
+	}
+}
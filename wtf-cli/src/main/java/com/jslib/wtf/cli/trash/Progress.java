@@ -0,0 +1,45 @@
+package com.jslib.wtf.cli.trash;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// deletion counters updated concurrently by tree deleter tasks; optional listener is notified about every deleted file
+public class Progress {
+	private final AtomicLong filesCount = new AtomicLong();
+	private final AtomicLong bytesCount = new AtomicLong();
+	private final AtomicLong errorsCount = new AtomicLong();
+	private final Consumer<Path> listener;
+
+	public Progress() {
+		this(null);
+	}
+
+	public Progress(Consumer<Path> listener) {
+		this.listener = listener;
+	}
+
+	void onDelete(Path file, long size) {
+		filesCount.incrementAndGet();
+		bytesCount.addAndGet(size);
+		if (listener != null) {
+			listener.accept(file);
+		}
+	}
+
+	void onError() {
+		errorsCount.incrementAndGet();
+	}
+
+	public long getFilesCount() {
+		return filesCount.get();
+	}
+
+	public long getBytesCount() {
+		return bytesCount.get();
+	}
+
+	public long getErrorsCount() {
+		return errorsCount.get();
+	}
+}
@@ -0,0 +1,19 @@
+package com.jslib.wtf.cli.trash;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+// background process started by trash to delete trashed directories; single argument is WTF home directory
+public class Sweeper {
+	public static void main(String... args) throws IOException {
+		Trash trash = new Trash(Paths.get(args[0]));
+		Progress progress = new Progress();
+		long start = System.currentTimeMillis();
+		if (!trash.sweep(progress)) {
+			System.out.printf("%s: trash sweep already in progress.%n", LocalDateTime.now());
+			return;
+		}
+		System.out.printf("%s: deleted %d files, %d bytes, in %d msec; %d errors.%n", LocalDateTime.now(), progress.getFilesCount(), progress.getBytesCount(), System.currentTimeMillis() - start, progress.getErrorsCount());
+	}
+}
@@ -0,0 +1,183 @@
+package com.jslib.wtf.cli.trash;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// directories destruction in two steps: discard records a marker into ${wtf.home}/cache/trash then renames directory
+// aside, atomically, so that its name is free at once; trashed directories are deleted later, in parallel, by a sweep
+// that removes marker only after directory is completely deleted, so that an interrupted sweep is resumed by next one
+public class Trash {
+	private static final String TRASH_PREFIX = ".wtf-trash-";
+	private static final String LOG_FILE = "trash.log";
+	private static final long REPORT_PERIOD = 1000;
+	// a marker is written before its directory is renamed; marker without directory is left alone for this period
+	private static final long STALE_MARKER_AGE = 60000;
+	// minimum period between background sweeps started to resume leftovers
+	private static final long RESUME_PERIOD = 600000;
+
+	private final Path homeDir;
+	private final Path markersDir;
+	private final Path lockFile;
+
+	public Trash(Path homeDir) {
+		this.homeDir = homeDir;
+		this.markersDir = homeDir.resolve("cache/trash");
+		this.lockFile = homeDir.resolve("cache/trash.lock");
+	}
+
+	// trashed directory is a hidden sibling of discarded one; on the same file system rename is atomic
+	public Path discard(Path dir) throws IOException {
+		String id = UUID.randomUUID().toString();
+		Path trashDir = dir.toAbsolutePath().resolveSibling(TRASH_PREFIX + id);
+		// marker holding target path is written before rename so that a crash right after rename does not orphan
+		// trashed directory; sweep skips markers whose directory is not moved yet
+		Path markerFile = markersDir.resolve(id);
+		Files.createDirectories(markersDir);
+		Files.write(markerFile, trashDir.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(dir, trashDir, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(markerFile);
+			throw new IOException(format("Cannot discard directory %s: %s", dir, e.getMessage()), e);
+		}
+		return trashDir;
+	}
+
+	// delete trashed directory on current thread, calling reporter periodically till done
+	public void delete(Path trashDir, Progress progress, Consumer<Progress> reporter) throws IOException {
+		ForkJoinPool pool = pool();
+		try {
+			ForkJoinTask<Void> task = pool.submit(new TreeDeleter(trashDir, progress));
+			for (;;) {
+				try {
+					task.get(REPORT_PERIOD, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e) {
+					if (reporter != null) {
+						reporter.accept(progress);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(format("Interrupted deletion of %s.", trashDir));
+		} catch (ExecutionException e) {
+			throw new IOException(format("Fail to delete %s: %s", trashDir, e.getCause().getMessage()), e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		if (!Files.exists(trashDir)) {
+			Files.deleteIfExists(markersDir.resolve(trashDir.getFileName().toString().substring(TRASH_PREFIX.length())));
+		}
+	}
+
+	public boolean hasLeftovers() throws IOException {
+		return !markers().isEmpty();
+	}
+
+	// delete all trashed directories; return false if sweep is already in progress, possible from another process
+	public boolean sweep(Progress progress) throws IOException {
+		Files.createDirectories(lockFile.getParent());
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.tryLock()) {
+			if (lock == null) {
+				return false;
+			}
+			for (Path markerFile : markers()) {
+				Path trashDir = Paths.get(new String(Files.readAllBytes(markerFile), StandardCharsets.UTF_8));
+				if (Files.exists(trashDir)) {
+					delete(trashDir, progress, null);
+				} else if (isStale(markerFile)) {
+					// discard crashed before rename or sweep crashed after directory deletion
+					Files.deleteIfExists(markerFile);
+				}
+			}
+			return true;
+		}
+	}
+
+	// resume deletion of leftovers into a background process; sweeper is not started if a sweep is in progress or if
+	// one was started in the last resume period, so that not every command forks a process while leftovers remain
+	public void resumeBackground() throws IOException {
+		if (!hasLeftovers() || isSweeping()) {
+			return;
+		}
+		if (Files.exists(lockFile) && System.currentTimeMillis() - Files.getLastModifiedTime(lockFile).toMillis() < RESUME_PERIOD) {
+			return;
+		}
+		sweepBackground();
+	}
+
+	// sweep into a background process so that current command does not wait for deletion; sweep printouts are appended
+	// to ${wtf.home}/trash.log
+	public void sweepBackground() throws IOException {
+		// lock file modification time records last background sweep start, see resume
+		Files.createDirectories(lockFile.getParent());
+		if (!Files.exists(lockFile)) {
+			Files.createFile(lockFile);
+		}
+		Files.setLastModifiedTime(lockFile, FileTime.fromMillis(System.currentTimeMillis()));
+
+		List<String> command = new ArrayList<>();
+		command.add("java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Sweeper.class.getName());
+		command.add(homeDir.toString());
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.directory(homeDir.toFile());
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(homeDir.resolve(LOG_FILE).toFile()));
+		processBuilder.start();
+	}
+
+	private boolean isSweeping() throws IOException {
+		if (!Files.exists(lockFile)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE); FileLock lock = channel.tryLock()) {
+			return lock == null;
+		}
+	}
+
+	private boolean isStale(Path markerFile) throws IOException {
+		return System.currentTimeMillis() - Files.getLastModifiedTime(markerFile).toMillis() > STALE_MARKER_AGE;
+	}
+
+	private List<Path> markers() throws IOException {
+		List<Path> markers = new ArrayList<>();
+		if (!Files.isDirectory(markersDir)) {
+			return markers;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(markersDir)) {
+			stream.forEach(markers::add);
+		}
+		return markers;
+	}
+
+	// deletion is I/O bound; use more threads than processors to keep storage queue busy
+	private static ForkJoinPool pool() {
+		return new ForkJoinPool(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+	}
+}
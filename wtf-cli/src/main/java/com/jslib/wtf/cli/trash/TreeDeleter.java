@@ -0,0 +1,64 @@
+package com.jslib.wtf.cli.trash;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+// fork join deletion of a directory tree: every directory task deletes its files and forks a task per child directory,
+// then deletes the directory itself; symbolic links are deleted, never followed
+//
+// failures are counted, not thrown, so that one locked file does not stop the whole tree; an incomplete tree is simply
+// deleted again on next sweep
+class TreeDeleter extends RecursiveAction {
+	private static final long serialVersionUID = 6431587305271640923L;
+
+	private final Path dir;
+	private final Progress progress;
+
+	public TreeDeleter(Path dir, Progress progress) {
+		this.dir = dir;
+		this.progress = progress;
+	}
+
+	@Override
+	protected void compute() {
+		List<TreeDeleter> subtasks = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path file : stream) {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				if (attributes.isDirectory()) {
+					subtasks.add(new TreeDeleter(file, progress));
+					continue;
+				}
+				if (delete(file)) {
+					progress.onDelete(file, attributes.size());
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// directory already deleted by concurrent sweep
+			return;
+		} catch (IOException e) {
+			progress.onError();
+		}
+
+		invokeAll(subtasks);
+		delete(dir);
+	}
+
+	private boolean delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+			return true;
+		} catch (IOException e) {
+			progress.onError();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.jslib.wtf.cli.update;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import com.jslib.wtf.cli.Hash;
+
+// download file using HTTP byte ranges; every segment is written to its own part file, next to target file, and an
+// interrupted download resumes from part files length
+//
+// downloaded content is verified against SHA-1 checksum published by Maven repository next to artifact, that is, on
+// the same URI with .sha1 suffix, and only after that is moved to target file
+class Downloader {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final CloseableHttpClient client;
+	private final int segmentsCount;
+
+	public Downloader(CloseableHttpClient client, int segmentsCount) {
+		this.client = client;
+		this.segmentsCount = segmentsCount;
+	}
+
+	public void download(URI uri, Path targetFile) throws IOException {
+		String checksum = checksum(uri);
+
+		List<Segment> segments = segments(uri, targetFile);
+		deleteStaleParts(targetFile, segments);
+		if (segments.size() == 1) {
+			segments.get(0).download();
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(segments.size());
+			try {
+				List<Future<Void>> futures = new ArrayList<>();
+				for (Segment segment : segments) {
+					futures.add(executor.submit(() -> {
+						segment.download();
+						return null;
+					}));
+				}
+				for (Future<Void> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(format("Interrupted download %s.", uri), e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		Path downloadFile = targetFile.resolveSibling(targetFile.getFileName() + ".download");
+		MessageDigest digest = Hash.sha1();
+		try (OutputStream outputStream = Files.newOutputStream(downloadFile)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			for (Segment segment : segments) {
+				try (InputStream inputStream = Files.newInputStream(segment.partFile)) {
+					int length;
+					while ((length = inputStream.read(buffer)) != -1) {
+						digest.update(buffer, 0, length);
+						outputStream.write(buffer, 0, length);
+					}
+				}
+			}
+		}
+
+		// part files are not reusable after check failure, most probably because remote file was changed meanwhile
+		for (Segment segment : segments) {
+			Files.delete(segment.partFile);
+		}
+		if (!checksum.equalsIgnoreCase(Hash.hex(digest.digest()))) {
+			Files.delete(downloadFile);
+			throw new IOException(format("Checksum mismatch on download %s.", uri));
+		}
+		Files.move(downloadFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private String checksum(URI uri) throws IOException {
+		URI checksumURI = URI.create(uri.toString() + ".sha1");
+		try (CloseableHttpResponse response = client.execute(new HttpGet(checksumURI))) {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				throw new IOException(format("Missing checksum %s.", checksumURI));
+			}
+			// checksum file may contain file name after hash value
+			String checksum = EntityUtils.toString(response.getEntity(), StandardCharsets.US_ASCII).trim();
+			return checksum.split("\\s+")[0];
+		}
+	}
+
+	private List<Segment> segments(URI uri, Path targetFile) throws IOException {
+		List<Segment> segments = new ArrayList<>();
+
+		long contentLength = -1;
+		if (segmentsCount > 1) {
+			try (CloseableHttpResponse response = client.execute(new HttpHead(uri))) {
+				Header acceptRanges = response.getFirstHeader("Accept-Ranges");
+				Header contentLengthHeader = response.getFirstHeader("Content-Length");
+				if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK && acceptRanges != null && acceptRanges.getValue().equals("bytes") && contentLengthHeader != null) {
+					contentLength = Long.parseLong(contentLengthHeader.getValue());
+				}
+			}
+		}
+
+		// single segment with open end if content length is not known or server does not accept byte ranges
+		if (contentLength < segmentsCount) {
+			segments.add(new Segment(uri, targetFile.resolveSibling(targetFile.getFileName() + ".part"), 0, -1));
+			return segments;
+		}
+
+		long segmentLength = contentLength / segmentsCount;
+		for (int i = 0; i < segmentsCount; ++i) {
+			long start = i * segmentLength;
+			long end = i < segmentsCount - 1 ? start + segmentLength - 1 : contentLength - 1;
+			// part file is named after its range so that a part from a download with other segments count is not resumed
+			segments.add(new Segment(uri, targetFile.resolveSibling(format("%s.part%d-%d", targetFile.getFileName(), start, end)), start, end));
+		}
+		return segments;
+	}
+
+	// part files not in current segments plan, left by an interrupted download with other segments count or remote file
+	// length, are never resumed; delete them before download so that they do not pile up next to target file
+	private static void deleteStaleParts(Path targetFile, List<Segment> segments) throws IOException {
+		Set<String> partFiles = new HashSet<>();
+		for (Segment segment : segments) {
+			partFiles.add(segment.partFile.getFileName().toString());
+		}
+		String prefix = targetFile.getFileName() + ".part";
+		Path dir = targetFile.toAbsolutePath().getParent();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, file -> file.getFileName().toString().startsWith(prefix))) {
+			for (Path file : stream) {
+				if (!partFiles.contains(file.getFileName().toString())) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	private class Segment {
+		private final URI uri;
+		private final Path partFile;
+		private final long start;
+		// end position, inclusive; -1 for open end
+		private final long end;
+
+		public Segment(URI uri, Path partFile, long start, long end) {
+			this.uri = uri;
+			this.partFile = partFile;
+			this.start = start;
+			this.end = end;
+		}
+
+		public void download() throws IOException {
+			long partLength = Files.exists(partFile) ? Files.size(partFile) : 0;
+			if (end != -1 && partLength == end - start + 1) {
+				return;
+			}
+
+			HttpGet request = new HttpGet(uri);
+			if (start + partLength > 0 || end != -1) {
+				request.setHeader("Range", format("bytes=%d-%s", start + partLength, end != -1 ? Long.toString(end) : ""));
+			}
+
+			try (CloseableHttpResponse response = client.execute(request)) {
+				StandardOpenOption openOption;
+				switch (response.getStatusLine().getStatusCode()) {
+				case HttpStatus.SC_PARTIAL_CONTENT:
+					openOption = StandardOpenOption.APPEND;
+					break;
+
+				case HttpStatus.SC_OK:
+					// server ignores range request and sends entire content; valid only for single segment
+					if (end != -1) {
+						throw new IOException(format("Server does not support byte ranges for %s.", uri));
+					}
+					openOption = StandardOpenOption.TRUNCATE_EXISTING;
+					break;
+
+				case HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE:
+					// part file for open end segment is already complete
+					EntityUtils.consume(response.getEntity());
+					return;
+
+				default:
+					throw new IOException(format("Fail to download %s. Server response: %s", uri, response.getStatusLine()));
+				}
+
+				try (InputStream inputStream = response.getEntity().getContent(); OutputStream outputStream = Files.newOutputStream(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, openOption)) {
+					byte[] buffer = new byte[BUFFER_SIZE];
+					int length;
+					while ((length = inputStream.read(buffer)) != -1) {
+						outputStream.write(buffer, 0, length);
+					}
+				}
+			}
+		}
+	}
+}
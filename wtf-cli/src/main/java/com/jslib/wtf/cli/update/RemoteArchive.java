@@ -0,0 +1,276 @@
+package com.jslib.wtf.cli.update;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+// remote zip archive read with HTTP range requests; only central directory is loaded to discover entries and selected
+// entries are copied raw, still compressed, into a local delta archive
+//
+// delta archive is a valid zip file with selected entries and a manifest entry listing the names of all remote archive
+// entries, used by updater to detect obsolete files
+class RemoteArchive {
+	public static final String DELTA_MANIFEST = "wtf-delta.manifest";
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_HEADER_SIGNATURE = 0x06054b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_HEADER_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+	// 1980-01-01 in MS-DOS date format
+	private static final short DOS_EPOCH = 0x21;
+
+	private final CloseableHttpClient client;
+	private final URI uri;
+
+	private long centralDirectoryOffset;
+
+	public RemoteArchive(CloseableHttpClient client, URI uri) {
+		this.client = client;
+		this.uri = uri;
+	}
+
+	// return null if server does not support byte ranges or archive uses zip64, in which case caller should fall back to
+	// full archive download
+	public List<Entry> entries() throws IOException {
+		byte[] tail = range(format("bytes=-%d", END_HEADER_SIZE + MAX_COMMENT_SIZE));
+		if (tail == null) {
+			return null;
+		}
+
+		int endHeaderIndex = -1;
+		for (int i = tail.length - END_HEADER_SIZE; i >= 0; --i) {
+			if (buffer(tail, i).getInt() == END_HEADER_SIGNATURE) {
+				endHeaderIndex = i;
+				break;
+			}
+		}
+		if (endHeaderIndex == -1) {
+			throw new IOException(format("Invalid zip archive %s. Missing central directory end.", uri));
+		}
+
+		ByteBuffer endHeader = buffer(tail, endHeaderIndex);
+		int entriesCount = endHeader.getShort(10) & 0xFFFF;
+		long centralDirectorySize = endHeader.getInt(12) & 0xFFFFFFFFL;
+		centralDirectoryOffset = endHeader.getInt(16) & 0xFFFFFFFFL;
+		if (entriesCount == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL) {
+			// zip64 archive; not worth the complexity for an assembly of a few megabytes
+			return null;
+		}
+
+		byte[] centralDirectory = range(format("bytes=%d-%d", centralDirectoryOffset, centralDirectoryOffset + centralDirectorySize - 1));
+		if (centralDirectory == null) {
+			return null;
+		}
+
+		List<Entry> entries = new ArrayList<>(entriesCount);
+		ByteBuffer buffer = buffer(centralDirectory, 0);
+		while (buffer.remaining() >= CENTRAL_HEADER_SIZE && buffer.getInt(buffer.position()) == CENTRAL_HEADER_SIGNATURE) {
+			int position = buffer.position();
+			int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+			int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+			int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+
+			byte[] header = new byte[CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength];
+			buffer.get(header);
+			entries.add(new Entry(header));
+		}
+
+		// entry data range ends where next entry, in archive order, begins
+		List<Entry> sortedEntries = new ArrayList<>(entries);
+		Collections.sort(sortedEntries, Comparator.comparingLong(Entry::getOffset));
+		for (int i = 0; i < sortedEntries.size(); ++i) {
+			sortedEntries.get(i).end = i < sortedEntries.size() - 1 ? sortedEntries.get(i + 1).getOffset() : centralDirectoryOffset;
+		}
+		return entries;
+	}
+
+	// delta archive is written into a part file moved over delta file only when complete and verified, so that an
+	// interrupted or corrupt download never leaves an archive for updater to apply; return false if a downloaded entry
+	// does not match CRC and size from remote central directory, in which case caller should fall back to full archive
+	// download, verified against published checksum
+	public boolean download(List<Entry> entries, List<Entry> changedEntries, Path deltaFile) throws IOException {
+		ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+		long offset = 0;
+
+		Path partFile = deltaFile.resolveSibling(deltaFile.getFileName() + ".part");
+		try (OutputStream outputStream = Files.newOutputStream(partFile)) {
+			for (Entry entry : changedEntries) {
+				byte[] data = range(format("bytes=%d-%d", entry.getOffset(), entry.end - 1));
+				if (data == null || buffer(data, 0).getInt() != LOCAL_HEADER_SIGNATURE) {
+					throw new IOException(format("Invalid zip archive %s. Bad local header for entry %s.", uri, entry.getName()));
+				}
+				outputStream.write(data);
+				centralDirectory.write(entry.relocate(offset));
+				offset += data.length;
+			}
+
+			StringBuilder manifest = new StringBuilder();
+			for (Entry entry : entries) {
+				manifest.append(entry.getName()).append('\n');
+			}
+			byte[] manifestName = DELTA_MANIFEST.getBytes(StandardCharsets.UTF_8);
+			byte[] manifestData = manifest.toString().getBytes(StandardCharsets.UTF_8);
+			CRC32 crc = new CRC32();
+			crc.update(manifestData);
+
+			ByteBuffer localHeader = ByteBuffer.allocate(LOCAL_HEADER_SIZE + manifestName.length).order(ByteOrder.LITTLE_ENDIAN);
+			localHeader.putInt(LOCAL_HEADER_SIGNATURE).putShort((short) 10).putShort((short) 0x0800).putShort((short) 0).putShort((short) 0).putShort(DOS_EPOCH);
+			localHeader.putInt((int) crc.getValue()).putInt(manifestData.length).putInt(manifestData.length);
+			localHeader.putShort((short) manifestName.length).putShort((short) 0).put(manifestName);
+			outputStream.write(localHeader.array());
+			outputStream.write(manifestData);
+
+			ByteBuffer centralHeader = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + manifestName.length).order(ByteOrder.LITTLE_ENDIAN);
+			centralHeader.putInt(CENTRAL_HEADER_SIGNATURE).putShort((short) 10).putShort((short) 10).putShort((short) 0x0800).putShort((short) 0).putShort((short) 0).putShort(DOS_EPOCH);
+			centralHeader.putInt((int) crc.getValue()).putInt(manifestData.length).putInt(manifestData.length);
+			centralHeader.putShort((short) manifestName.length).putShort((short) 0).putShort((short) 0);
+			centralHeader.putShort((short) 0).putShort((short) 0).putInt(0).putInt((int) offset).put(manifestName);
+			centralDirectory.write(centralHeader.array());
+			offset += localHeader.capacity() + manifestData.length;
+
+			ByteBuffer endHeader = ByteBuffer.allocate(END_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			short entriesCount = (short) (changedEntries.size() + 1);
+			endHeader.putInt(END_HEADER_SIGNATURE).putShort((short) 0).putShort((short) 0).putShort(entriesCount).putShort(entriesCount);
+			endHeader.putInt(centralDirectory.size()).putInt((int) offset).putShort((short) 0);
+
+			centralDirectory.writeTo(outputStream);
+			outputStream.write(endHeader.array());
+		} catch (IOException e) {
+			Files.deleteIfExists(partFile);
+			throw e;
+		}
+
+		if (!verify(partFile, changedEntries)) {
+			Files.delete(partFile);
+			return false;
+		}
+		Files.move(partFile, deltaFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	// inflate every relocated entry and compare its CRC and size with the ones from remote central directory; a range
+	// response with bytes from a changed remote archive or a bad relocation is a mismatch
+	private static boolean verify(Path archiveFile, List<Entry> changedEntries) throws IOException {
+		try (ZipFile zipFile = new ZipFile(archiveFile.toFile())) {
+			byte[] buffer = new byte[64 * 1024];
+			for (Entry entry : changedEntries) {
+				ZipEntry zipEntry = zipFile.getEntry(entry.getName());
+				if (zipEntry == null) {
+					return false;
+				}
+				CRC32 crc = new CRC32();
+				long size = 0;
+				try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+					int length;
+					while ((length = inputStream.read(buffer)) != -1) {
+						crc.update(buffer, 0, length);
+						size += length;
+					}
+				}
+				if (crc.getValue() != entry.getCrc() || size != entry.getSize()) {
+					return false;
+				}
+			}
+		} catch (ZipException e) {
+			return false;
+		}
+		return true;
+	}
+
+	private byte[] range(String range) throws IOException {
+		HttpGet request = new HttpGet(uri);
+		request.setHeader("Range", range);
+		try (CloseableHttpResponse response = client.execute(request)) {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+				return null;
+			}
+			Header contentEncoding = response.getFirstHeader("Content-Encoding");
+			if (contentEncoding != null && !contentEncoding.getValue().equalsIgnoreCase("identity")) {
+				return null;
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (InputStream inputStream = response.getEntity().getContent()) {
+				byte[] buffer = new byte[64 * 1024];
+				int length;
+				while ((length = inputStream.read(buffer)) != -1) {
+					bytes.write(buffer, 0, length);
+				}
+			}
+			return bytes.toByteArray();
+		}
+	}
+
+	private static ByteBuffer buffer(byte[] bytes, int offset) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.position(offset);
+		return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// remote archive entry backed by its raw central directory header
+	public static class Entry {
+		private final byte[] header;
+		private final String name;
+		private long end;
+
+		Entry(byte[] header) {
+			this.header = header;
+			int nameLength = buffer(header, 0).getShort(28) & 0xFFFF;
+			this.name = new String(header, CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		public long getCrc() {
+			return buffer(header, 0).getInt(16) & 0xFFFFFFFFL;
+		}
+
+		public long getSize() {
+			return buffer(header, 0).getInt(24) & 0xFFFFFFFFL;
+		}
+
+		long getOffset() {
+			return buffer(header, 0).getInt(42) & 0xFFFFFFFFL;
+		}
+
+		byte[] relocate(long offset) {
+			byte[] relocated = header.clone();
+			buffer(relocated, 0).putInt(42, (int) offset);
+			return relocated;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.jslib.wtf.cli.update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+// local cache for latest assembly discovered on repository; cached entry is trusted for configured time to live and
+// after that revalidated with conditional requests on repository listings used for discovery
+//
+// if any listing is changed cache entry is discarded and caller should discover assembly again, from listings content
+class RepositoryIndex {
+	private final CloseableHttpClient client;
+	private final Path indexFile;
+	private final Duration timeToLive;
+
+	public RepositoryIndex(CloseableHttpClient client, Path indexFile, Duration timeToLive) {
+		this.client = client;
+		this.indexFile = indexFile;
+		this.timeToLive = timeToLive;
+	}
+
+	// return null if there is no cache entry, cache entry is corrupt or repository listings were changed
+	public Entry get() throws IOException {
+		if (!Files.exists(indexFile)) {
+			return null;
+		}
+		Properties index = new Properties();
+		Instant checked;
+		Entry entry;
+		try (InputStream inputStream = Files.newInputStream(indexFile)) {
+			index.load(inputStream);
+			checked = Instant.ofEpochMilli(Long.parseLong(index.getProperty("checked", "0")));
+			String uri = index.getProperty("assembly.uri");
+			String name = index.getProperty("assembly.name");
+			String modificationTime = index.getProperty("assembly.modified");
+			if (uri == null || name == null) {
+				return null;
+			}
+			entry = new Entry(URI.create(uri), name, modificationTime != null ? Instant.ofEpochMilli(Long.parseLong(modificationTime)) : null);
+		} catch (IllegalArgumentException e) {
+			// corrupt index file, e.g. truncated by a crash on a file system without atomic rename, is a cache miss
+			return null;
+		}
+
+		if (checked.plus(timeToLive).isBefore(Instant.now())) {
+			for (int i = 0; index.containsKey("listing." + i + ".uri"); ++i) {
+				if (!notModified(index, "listing." + i)) {
+					return null;
+				}
+			}
+			index.setProperty("checked", Long.toString(System.currentTimeMillis()));
+			store(index);
+		}
+		return entry;
+	}
+
+	// listings are the repository pages scraped to discover given assembly
+	public Entry put(URI assemblyURI, String assemblyName, URI... listingURIs) throws IOException {
+		Properties index = new Properties();
+		for (int i = 0; i < listingURIs.length; ++i) {
+			String key = "listing." + i;
+			index.setProperty(key + ".uri", listingURIs[i].toString());
+			try (CloseableHttpResponse response = client.execute(new HttpHead(listingURIs[i]))) {
+				setHeader(index, key + ".etag", response.getFirstHeader("ETag"));
+				setHeader(index, key + ".modified", response.getFirstHeader("Last-Modified"));
+			}
+		}
+
+		Instant modificationTime = null;
+		try (CloseableHttpResponse response = client.execute(new HttpHead(assemblyURI))) {
+			Header lastModified = response.getFirstHeader("Last-Modified");
+			Date date = lastModified != null ? DateUtils.parseDate(lastModified.getValue()) : null;
+			if (date != null) {
+				modificationTime = date.toInstant();
+				index.setProperty("assembly.modified", Long.toString(date.getTime()));
+			}
+		}
+
+		index.setProperty("assembly.uri", assemblyURI.toString());
+		index.setProperty("assembly.name", assemblyName);
+		index.setProperty("checked", Long.toString(System.currentTimeMillis()));
+		store(index);
+		return new Entry(assemblyURI, assemblyName, modificationTime);
+	}
+
+	private boolean notModified(Properties index, String key) throws IOException {
+		String etag = index.getProperty(key + ".etag");
+		String lastModified = index.getProperty(key + ".modified");
+		if (etag == null && lastModified == null) {
+			// server provides no validators; there is no way to tell listing is not changed
+			return false;
+		}
+
+		HttpRequestBase request = new HttpGet(index.getProperty(key + ".uri"));
+		if (etag != null) {
+			request.setHeader("If-None-Match", etag);
+		}
+		if (lastModified != null) {
+			request.setHeader("If-Modified-Since", lastModified);
+		}
+		try (CloseableHttpResponse response = client.execute(request)) {
+			EntityUtils.consume(response.getEntity());
+			return response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+		}
+	}
+
+	private void store(Properties index) throws IOException {
+		Files.createDirectories(indexFile.getParent());
+		// concurrent update checks, e.g. from parallel build jobs, may store index; publish with atomic rename
+		Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+			index.store(outputStream, null);
+		}
+		try {
+			Files.move(tempFile, indexFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void setHeader(Properties index, String key, Header header) {
+		if (header != null) {
+			index.setProperty(key, header.getValue());
+		}
+	}
+
+	public static class Entry {
+		private final URI uri;
+		private final String name;
+		// null if repository server does not provide assembly last modified time
+		private final Instant modificationTime;
+
+		public Entry(URI uri, String name, Instant modificationTime) {
+			this.uri = uri;
+			this.name = name;
+			this.modificationTime = modificationTime;
+		}
+
+		public URI getURI() {
+			return uri;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Instant getModificationTime() {
+			return modificationTime;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.jslib.wtf.cli.update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.Home;
+import com.jslib.commons.cli.Task;
+import com.jslib.commons.cli.WebsUtil;
+import com.jslib.wtf.cli.daemon.DaemonClient;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "update", description = "Update WTF install.")
+public class Update extends Task {
+
+	private static final URI DISTRIBUTION_URI = URI.create("http://maven.js-lib.com/com/js-lib/wtf-assembly/");
+	private static final Pattern ARCHIVE_DIRECTORY_PATTERN = Pattern.compile("^\\d+\\.\\d+\\.\\d*(-[a-z0-9]+)?/$", Pattern.CASE_INSENSITIVE);
+	private static final Pattern ARCHIVE_FILE_PATTERN = Pattern.compile("^wtf-assembly.+\\.zip$");
+	private static final Pattern UPDATER_FILE_PATTERN = Pattern.compile("^wtf-update.+\\.jar$");
+	private static final long INDEX_TIME_TO_LIVE = 60;
+
+	@Option(names = { "-f", "--force" }, description = "Force update regardless release date.")
+	private boolean force;
+	@Option(names = { "--full" }, description = "Download full assembly instead of changed files only.")
+	private boolean full;
+	@Option(names = { "-s", "--segments" }, description = "Number of parallel segments for full assembly download. Default: 1.", defaultValue = "1")
+	private int segments;
+	@Option(names = { "-y", "--yes" }, description = "Auto-confirm update.")
+	private boolean yes;
+	@Option(names = { "-v", "--verbose" }, description = "Verbose printouts about processed files.")
+	private boolean verbose;
+
+	@Override
+	protected ExitCode exec() throws Exception {
+		try (CloseableHttpClient client = HttpClients.createDefault()) {
+			return exec(client);
+		}
+	}
+
+	private ExitCode exec(CloseableHttpClient client) throws Exception {
+		Path homeDir = files.getPath(Home.getPath());
+		RepositoryIndex index = new RepositoryIndex(client, homeDir.resolve("cache/update/index.properties"), indexTimeToLive());
+		RepositoryIndex.Entry assemblyFile = index.get();
+		// release time from repository listing, used when repository server does not provide assembly last modified time
+		WebsUtil.File latestFile = null;
+		if (assemblyFile != null && assemblyFile.getModificationTime() == null) {
+			// listing time is not cached and cache entry alone cannot tell if install is updated
+			assemblyFile = null;
+		}
+
+		if (assemblyFile == null) {
+			if (verbose) {
+				console.print("Checking WTF assemblies repository...");
+			}
+
+			WebsUtil.File assemblyDir = webs.latestVersion(DISTRIBUTION_URI, ARCHIVE_DIRECTORY_PATTERN, verbose);
+			if (assemblyDir == null) {
+				console.print("Empty WTF assemblies repository %s.", DISTRIBUTION_URI);
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+
+			latestFile = webs.latestVersion(assemblyDir.getURI(), ARCHIVE_FILE_PATTERN, verbose);
+			if (latestFile == null) {
+				console.print("Invalid WTF assembly version %s. No assembly found.", assemblyDir.getURI());
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+			assemblyFile = index.put(latestFile.getURI(), latestFile.getName(), DISTRIBUTION_URI, assemblyDir.getURI());
+		}
+
+		Path binariesDir = homeDir.resolve("bin");
+		Path updaterJar = files.getFileByNamePattern(binariesDir, UPDATER_FILE_PATTERN);
+		if (updaterJar == null) {
+			console.print("Corrupt WTF install. Missing updater.");
+			console.print("Command abort.");
+			return ExitCode.ABORT;
+		}
+
+		// uses wtf.properties file to detect last update time
+		Path propertiesFile = homeDir.resolve("bin/wtf.properties");
+		if (files.exists(propertiesFile)) {
+			boolean released;
+			if (assemblyFile.getModificationTime() != null) {
+				released = assemblyFile.getModificationTime().isAfter(Files.getLastModifiedTime(propertiesFile).toInstant());
+			} else {
+				released = latestFile.getModificationTime().isAfter(files.getModificationTime(propertiesFile));
+			}
+			if (!force && !released) {
+				console.print("Current WTF install is updated.");
+				console.print("Command abort.");
+				return ExitCode.ABORT;
+			}
+		}
+
+		console.print("Updating WTF install from %s...", assemblyFile.getName());
+		if (!yes && !console.confirm("Please confirm: yes | [no]", "yes")) {
+			console.print("User cancel.");
+			return ExitCode.CANCEL;
+		}
+
+		console.print("Downloading WTF assembly %s...", assemblyFile.getName());
+		Path downloadFile = homeDir.resolve(assemblyFile.getName());
+		if (full || !downloadDelta(client, assemblyFile.getURI(), homeDir, downloadFile)) {
+			// full assembly is verified against published checksum before updater deletes current install
+			Downloader downloader = new Downloader(client, segments);
+			downloader.download(assemblyFile.getURI(), downloadFile);
+		}
+
+		// running daemon keeps install jars open and would serve stale classes after update
+		if (DaemonClient.stop(homeDir)) {
+			console.print("WTF daemon stopped.");
+		}
+
+		console.print("Download complete. Start WTF install update.");
+		List<String> command = new ArrayList<>();
+		command.add("java");
+		command.add("-cp");
+		command.add(updaterJar.toAbsolutePath().toString());
+		command.add("com.jslib.wtf.update.Main");
+		if (verbose) {
+			command.add("--verbose");
+		}
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.directory(files.getWorkingDir().toFile()).inheritIO().start();
+
+		return ExitCode.SUCCESS;
+	}
+
+	// repository index time to live, in minutes, from update.index.ttl property
+	private Duration indexTimeToLive() {
+		String timeToLive = config.get("update.index.ttl");
+		return Duration.ofMinutes(timeToLive != null ? Long.parseLong(timeToLive.trim()) : INDEX_TIME_TO_LIVE);
+	}
+
+	// download only assembly entries with CRC or size different from installed files; return false if repository server
+	// does not support byte ranges or downloaded entries do not match remote archive
+	boolean downloadDelta(CloseableHttpClient client, URI assemblyURI, Path homeDir, Path downloadFile) throws IOException {
+		RemoteArchive archive = new RemoteArchive(client, assemblyURI);
+		List<RemoteArchive.Entry> entries = archive.entries();
+		if (entries == null) {
+			return false;
+		}
+
+		List<RemoteArchive.Entry> changedEntries = new ArrayList<>();
+		for (RemoteArchive.Entry entry : entries) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+			Path file = homeDir.resolve(zipFileName(entry.getName()));
+			if (!files.exists(file) || Files.size(file) != entry.getSize() || crc(file) != entry.getCrc()) {
+				if (verbose) {
+					console.print("Changed file %s", file);
+				}
+				changedEntries.add(entry);
+			}
+		}
+
+		console.print("Downloading %d changed files...", changedEntries.size());
+		if (!archive.download(entries, changedEntries, downloadFile)) {
+			console.print("Corrupt delta download. Fall back to full assembly download.");
+			return false;
+		}
+		return true;
+	}
+
+	private static long crc(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream inputStream = Files.newInputStream(file)) {
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				crc.update(buffer, 0, length);
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static String zipFileName(String zipEntityName) {
+		int index = zipEntityName.indexOf('/') + 1;
+		return zipEntityName.substring(index);
+	}
+}
@@ -0,0 +1,34 @@
+package com.jslib.wtf.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class HashTest {
+	@Test
+	public void GivenContent_WhenSha256Hex_ThenLowerCaseHexDigest() {
+		// given
+		byte[] content = "abc".getBytes(StandardCharsets.UTF_8);
+
+		// when
+		String hash = Hash.sha256Hex(content);
+
+		// then
+		assertThat(hash, equalTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+	}
+
+	@Test
+	public void GivenNegativeBytes_WhenHex_ThenTwoDigitsPerByte() {
+		// given
+		byte[] bytes = new byte[] { 0, 15, -1, -128 };
+
+		// when
+		String hex = Hash.hex(bytes);
+
+		// then
+		assertThat(hex, equalTo("000fff80"));
+	}
+}
@@ -0,0 +1,81 @@
+package com.jslib.wtf.cli.build;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jslib.wtf.cli.Hash;
+
+public class BuildManifestTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path targetDir;
+	private FileTime modified;
+
+	@Before
+	public void beforeTest() throws IOException {
+		targetDir = folder.getRoot().toPath();
+		// file modified before manifest is stored
+		modified = FileTime.fromMillis(System.currentTimeMillis() - 10000);
+		write("index.htm", "<body>index</body>");
+		BuildManifest manifest = new BuildManifest(targetDir);
+		manifest.hash("index.htm");
+		manifest.save();
+	}
+
+	@Test
+	public void GivenSameSizeAndModificationTime_WhenHash_ThenPreviousHashWithoutRead() throws IOException {
+		// given
+		// same size and modification time, different content; file content is not read
+		write("index.htm", "<body>INDEX</body>");
+
+		// when
+		String hash = new BuildManifest(targetDir).hash("index.htm");
+
+		// then
+		assertThat(hash, equalTo(Hash.sha256Hex("<body>index</body>".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	public void GivenChangedModificationTime_WhenHash_ThenContentHash() throws IOException {
+		// given
+		modified = FileTime.fromMillis(modified.toMillis() + 1000);
+		write("index.htm", "<body>INDEX</body>");
+
+		// when
+		String hash = new BuildManifest(targetDir).hash("index.htm");
+
+		// then
+		assertThat(hash, equalTo(Hash.sha256Hex("<body>INDEX</body>".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	public void GivenMissingFile_WhenHash_ThenNull() throws IOException {
+		// given
+		Files.delete(targetDir.resolve("index.htm"));
+
+		// when
+		String hash = new BuildManifest(targetDir).hash("index.htm");
+
+		// then
+		assertThat(hash, nullValue());
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = targetDir.resolve(path);
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, modified);
+	}
+}
@@ -0,0 +1,363 @@
+package com.jslib.wtf.cli.build;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jslib.wtf.cli.Hash;
+
+public class BuilderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path projectDir;
+	private Path targetDir;
+	private Builder builder;
+
+	@Before
+	public void beforeTest() throws IOException {
+		projectDir = folder.getRoot().toPath();
+		targetDir = projectDir.resolve("build");
+		write("project.xml", "<project><title>Test</title><locale>en</locale><media-queries><media-query alias=\"xsd\" expression=\"max-width: 560px\" /></media-queries></project>");
+		write("res/theme/reset.css", "* { margin: 0; }");
+		write("res/theme/button_xsd.css", "button { padding: 0; }");
+		write("res/theme/section.css", "/* sections */\nsection.index > h2 {\n\tcolor: red;\n\tbackground: url(../asset/bg.png);\n}\n.unused, .unused h2 { color: blue; }");
+		write("res/asset/bg.png", "png");
+		write("res/template/page/page.htm", "<body xmlns:w=\"js-lib.com/wood\"><h1>@param/title</h1><section w:editable=\"section\"></section><footer>@string/copyright</footer></body>");
+		write("res/template/page/string.xml", "<string><copyright>(c) test</copyright></string>");
+		write("res/page/index/index.htm", "<section class=\"index\" w:template=\"res/template/page#section\" w:param=\"title:@string/title\" xmlns:w=\"js-lib.com/wood\"><h2>@string/title</h2></section>");
+		write("res/page/index/string.xml", "<string><title>Index &amp; Home</title></string>");
+		builder = new Builder(projectDir, targetDir);
+	}
+
+	@Test
+	public void GivenPageWithTemplate_WhenBuild_ThenComposedDocument() throws IOException {
+		// given
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, contains("res/page/index"));
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		assertThat(document, containsString("<body><h1>Index &amp; Home</h1><section class=\"index\"><h2>Index &amp; Home</h2></section><footer>(c) test</footer></body>"));
+		assertThat(document, not(containsString("w:")));
+		assertThat(builder.getWarnings(), empty());
+	}
+
+	@Test
+	public void GivenThemeStyles_WhenBuild_ThenMinifiedStyleBundle() throws IOException {
+		// given
+		write("res/theme/section_xsd.css", "section h2 { margin: 0; }");
+
+		// when
+		builder.build(false);
+
+		// then
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		Matcher matcher = Pattern.compile("<link rel=\"stylesheet\" href=\"(bundle/index\\.[0-9a-f]{10}\\.css)\">").matcher(document);
+		assertTrue(matcher.find());
+		String bundle = new String(Files.readAllBytes(targetDir.resolve(matcher.group(1))), StandardCharsets.UTF_8);
+		assertThat(bundle, equalTo("*{margin:0}section.index>h2{color:red;background:url(../asset/bg.png)}@media (max-width: 560px){section h2{margin:0}}"));
+		assertTrue(Files.exists(targetDir.resolve("asset/bg.png")));
+	}
+
+	@Test
+	public void GivenHeadScripts_WhenBuild_ThenScriptsBundledInExecutionOrder() throws IOException {
+		// given
+		write("project.xml", "<project><title>Test</title><head><script src=\"lib/a.js\" defer=\"true\"></script><script src=\"script/loader.js\" embedded=\"true\"></script><script src=\"lib/b.js\"></script><script src=\"script/c.js\" defer=\"true\"></script></head></project>");
+		write("lib/a.js", "// library a\nvar a = 1;");
+		write("script/loader.js", "if (a) {\n\tload();\n}");
+		write("lib/b.js", "var b = 2");
+		write("script/c.js", "var c = a + b;");
+
+		// when
+		builder.build(false);
+
+		// then
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		Matcher matcher = Pattern.compile("<script>if\\(a\\)\\{load\\(\\);\\}</script>\r\n<script src=\"(bundle/index\\.[0-9a-f]{10}\\.js)\"></script>\r\n<script src=\"(bundle/index\\.[0-9a-f]{10}\\.js)\" defer></script>").matcher(document);
+		assertTrue(matcher.find());
+		assertThat(new String(Files.readAllBytes(targetDir.resolve(matcher.group(1))), StandardCharsets.UTF_8), equalTo("var b=2"));
+		assertThat(new String(Files.readAllBytes(targetDir.resolve(matcher.group(2))), StandardCharsets.UTF_8), equalTo("var a=1;;\nvar c=a+b;"));
+		assertFalse(Files.exists(targetDir.resolve("lib/a.js")));
+	}
+
+	@Test
+	public void GivenProjectLocales_WhenBuild_ThenPagesForEveryLocale() throws IOException {
+		// given
+		write("project.xml", "<project><title>Test</title><locale>en,ro</locale></project>");
+		write("res/page/index/string_ro.xml", "<string><title>Acasa</title></string>");
+		write("res/asset/strings_ro.xml", "<string><copyright>(c) test ro</copyright></string>");
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, contains("res/page/index"));
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		assertThat(document, containsString("<html lang=\"en\">"));
+		assertThat(document, containsString("<h2>Index &amp; Home</h2>"));
+		assertThat(document, containsString("<footer>(c) test</footer>"));
+		document = new String(Files.readAllBytes(targetDir.resolve("ro/index.htm")), StandardCharsets.UTF_8);
+		assertThat(document, containsString("<html lang=\"ro\">"));
+		// project locale strings override template default strings
+		assertThat(document, containsString("<body><h1>Acasa</h1><section class=\"index\"><h2>Acasa</h2></section><footer>(c) test ro</footer></body>"));
+		assertThat(document, containsString("<link rel=\"stylesheet\" href=\"../bundle/index."));
+	}
+
+	@Test
+	public void GivenPageMarkup_WhenBuild_ThenCriticalStylesInlinedAndBundleLoadedAsync() throws IOException {
+		// given
+		write("res/theme/dialog.css", ".dialog { display: none; }");
+		write("script/dialog.js", "document.body.classList.add('dialog');");
+		write("project.xml", "<project><title>Test</title><locale>en,ro</locale><head><script src=\"script/dialog.js\"></script></head></project>");
+
+		// when
+		builder.build(false);
+
+		// then
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		Matcher matcher = Pattern.compile("href=\"(bundle/index\\.[0-9a-f]{10}\\.css)\"").matcher(document);
+		assertTrue(matcher.find());
+		// style used only by scripts is not critical but is still bundled
+		assertThat(document, containsString("<style>*{margin:0}section.index>h2{color:red;background:url(asset/bg.png)}</style>"));
+		assertThat(document, containsString("<link rel=\"stylesheet\" href=\"" + matcher.group(1) + "\" media=\"print\" onload=\"this.onload=null;this.media='all'\">"));
+		assertThat(document, containsString("<noscript><link rel=\"stylesheet\" href=\"" + matcher.group(1) + "\"></noscript>"));
+		assertThat(new String(Files.readAllBytes(targetDir.resolve(matcher.group(1))), StandardCharsets.UTF_8), containsString(".dialog{display:none}"));
+
+		String localeDocument = new String(Files.readAllBytes(targetDir.resolve("ro/index.htm")), StandardCharsets.UTF_8);
+		assertThat(localeDocument, containsString("background:url(../asset/bg.png)"));
+	}
+
+	@Test
+	public void GivenNoBundle_WhenBuild_ThenStyleFilesLinked() throws IOException {
+		// given
+		builder.setBundle(false);
+
+		// when
+		builder.build(false);
+
+		// then
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		assertThat(document, containsString("<link rel=\"stylesheet\" href=\"theme/button_xsd.css\" media=\"(max-width: 560px)\">"));
+		assertTrue(Files.exists(targetDir.resolve("theme/section.css")));
+		assertFalse(Files.exists(targetDir.resolve(Bundle.DIR)));
+	}
+
+	@Test
+	public void GivenCompressor_WhenBuild_ThenGzipSiblingsAndManifest() throws IOException {
+		// given
+		builder.setCompressor(new Compressor(null));
+
+		// when
+		builder.build(false);
+
+		// then
+		byte[] document = Files.readAllBytes(targetDir.resolve("index.htm"));
+		try (InputStream stream = new GZIPInputStream(Files.newInputStream(targetDir.resolve("index.htm.gz")))) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int length;
+			while ((length = stream.read(buffer)) != -1) {
+				bytes.write(buffer, 0, length);
+			}
+			assertTrue(Arrays.equals(document, bytes.toByteArray()));
+		}
+		assertFalse(Files.exists(targetDir.resolve("index.htm.br")));
+		// image is not compressible
+		assertFalse(Files.exists(targetDir.resolve("asset/bg.png.gz")));
+		String manifest = new String(Files.readAllBytes(targetDir.resolve(BuildManifest.FILE)), StandardCharsets.UTF_8);
+		long modified = Files.getLastModifiedTime(targetDir.resolve("index.htm")).toMillis();
+		assertThat(manifest, containsString("\"index.htm\": {\"size\": " + document.length + ", \"modified\": " + modified + ", \"hash\": \"" + Hash.sha256Hex(document) + "\""));
+		assertThat(manifest, containsString("\"asset/bg.png\": {\"size\": 3, "));
+		assertThat(builder.getCompressedCount(), equalTo(2));
+	}
+
+	@Test
+	public void GivenCompressedBuild_WhenPageRebuiltWithSameContent_ThenNothingCompressed() throws IOException {
+		// given
+		builder.setCompressor(new Compressor(null));
+		builder.build(false);
+		// a white space change is discarded by page composer
+		write("res/page/index/index.htm", "<section class=\"index\" w:template=\"res/template/page#section\" w:param=\"title:@string/title\" xmlns:w=\"js-lib.com/wood\"><h2>@string/title</h2></section>\n");
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, contains("res/page/index"));
+		assertThat(builder.getCompressedCount(), equalTo(0));
+		assertTrue(Files.exists(targetDir.resolve("index.htm.gz")));
+	}
+
+	@Test
+	public void GivenServiceWorkerWithPlaceholder_WhenBuild_ThenPrecacheManifestInjected() throws IOException {
+		// given
+		write("project.xml", "<project><title>Test</title><locale>en</locale><service-worker>script/worker.js</service-worker></project>");
+		write("script/worker.js", "var files = self.__PRECACHE_MANIFEST;");
+		builder.build(false);
+		String worker = new String(Files.readAllBytes(targetDir.resolve("worker.js")), StandardCharsets.UTF_8);
+		write("res/page/index/string.xml", "<string><title>Home</title></string>");
+
+		// when
+		builder.build(false);
+
+		// then
+		String revision = Hash.sha256Hex(Files.readAllBytes(targetDir.resolve("index.htm"))).substring(0, 10);
+		String updatedWorker = new String(Files.readAllBytes(targetDir.resolve("worker.js")), StandardCharsets.UTF_8);
+		assertThat(updatedWorker, containsString("{\"url\": \"index.htm\", \"revision\": \"" + revision + "\"}"));
+		assertThat(updatedWorker, containsString("{\"url\": \"asset/bg.png\", \"revision\": \""));
+		assertThat(updatedWorker, not(containsString("worker.js")));
+		assertThat(updatedWorker, not(equalTo(worker)));
+	}
+
+	@Test
+	public void GivenRemovedPage_WhenBuild_ThenServiceWorkerAndManifestRebuilt() throws IOException {
+		// given
+		write("project.xml", "<project><title>Test</title><locale>en</locale><service-worker>script/worker.js</service-worker></project>");
+		write("script/worker.js", "var files = self.__PRECACHE_MANIFEST;");
+		write("res/page/about/about.htm", "<section w:template=\"res/template/page#section\" w:param=\"title:About\" xmlns:w=\"js-lib.com/wood\"><p>About</p></section>");
+		builder.setCompressor(new Compressor(null));
+		builder.build(false);
+		assertThat(new String(Files.readAllBytes(targetDir.resolve("worker.js")), StandardCharsets.UTF_8), containsString("\"url\": \"about.htm\""));
+		Files.delete(projectDir.resolve("res/page/about/about.htm"));
+		Files.delete(projectDir.resolve("res/page/about"));
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, empty());
+		assertFalse(Files.exists(targetDir.resolve("about.htm")));
+		assertFalse(Files.exists(targetDir.resolve("about.htm.gz")));
+		String worker = new String(Files.readAllBytes(targetDir.resolve("worker.js")), StandardCharsets.UTF_8);
+		assertThat(worker, not(containsString("about.htm")));
+		assertThat(worker, containsString("\"url\": \"index.htm\""));
+		String manifest = new String(Files.readAllBytes(targetDir.resolve(BuildManifest.FILE)), StandardCharsets.UTF_8);
+		assertThat(manifest, not(containsString("about.htm")));
+		assertThat(manifest, containsString("\"index.htm\""));
+	}
+
+	@Test
+	public void GivenAssetImage_WhenBuild_ThenResponsiveVariants() throws IOException {
+		// given
+		ImageIO.write(new BufferedImage(800, 100, BufferedImage.TYPE_INT_RGB), "png", write("res/asset/photo.png", "").toFile());
+		write("res/page/index/index.htm", "<section class=\"index\" w:template=\"res/template/page#section\" w:param=\"title:@string/title\" xmlns:w=\"js-lib.com/wood\"><img src=\"@image/photo\" /></section>");
+
+		// when
+		builder.build(false);
+
+		// then
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		Matcher matcher = Pattern.compile("<img src=\"(asset/photo\\.[0-9a-f]{10}\\.)800\\.png\" srcset=\"([^\"]+)\" sizes=\"([^\"]+)\">").matcher(document);
+		assertTrue(matcher.find());
+		String prefix = matcher.group(1);
+		assertThat(matcher.group(2), equalTo(prefix + "560.png 560w, " + prefix + "800.png 800w"));
+		assertThat(matcher.group(3), equalTo("(max-width: 800px) 100vw, 800px"));
+		assertThat(ImageIO.read(targetDir.resolve(prefix + "560.png").toFile()).getWidth(), equalTo(560));
+		assertThat(ImageIO.read(targetDir.resolve(prefix + "560.png").toFile()).getHeight(), equalTo(70));
+		assertTrue(Files.exists(targetDir.resolve(prefix + "800.png")));
+		// image is linked only through its variants
+		assertFalse(Files.exists(targetDir.resolve("asset/photo.png")));
+	}
+
+	@Test
+	public void GivenUnchangedProject_WhenBuild_ThenNoPageBuilt() throws IOException {
+		// given
+		builder.build(false);
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, empty());
+		assertThat(builder.getPagesCount(), equalTo(1));
+	}
+
+	@Test
+	public void GivenTemplateStringsChanged_WhenBuild_ThenPageRebuilt() throws IOException {
+		// given
+		builder.build(false);
+		Path stringsFile = write("res/template/page/string.xml", "<string><copyright>(c) changed</copyright></string>");
+		// ensure fingerprint change on file systems with coarse modification time
+		Files.setLastModifiedTime(stringsFile, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, contains("res/page/index"));
+		String document = new String(Files.readAllBytes(targetDir.resolve("index.htm")), StandardCharsets.UTF_8);
+		assertThat(document, containsString("(c) changed"));
+	}
+
+	@Test
+	public void GivenPagesSharingComponent_WhenBuild_ThenPagesBuiltInParallelAndBuildStateMerged() throws IOException {
+		// given
+		write("project.xml", "<project><title>Test</title><locale>en,ro</locale></project>");
+		write("res/compo/card/card.htm", "<div class=\"card\">@string/card</div>");
+		write("res/compo/card/card.css", ".card { border: 1px solid; }");
+		write("res/compo/card/string.xml", "<string><card>Card</card></string>");
+		List<String> names = Arrays.asList("about", "contact", "news");
+		for (String name : names) {
+			write("res/page/" + name + "/" + name + ".htm", "<section w:template=\"res/template/page#section\" w:param=\"title:" + name + "\" xmlns:w=\"js-lib.com/wood\"><div w:compo=\"res/compo/card\"></div></section>");
+		}
+
+		// when
+		List<String> pages = builder.build(false);
+
+		// then
+		assertThat(pages, contains("res/page/about", "res/page/contact", "res/page/index", "res/page/news"));
+		BuildCache cache = new BuildCache(targetDir);
+		cache.load();
+		for (String name : names) {
+			for (String pageFile : Arrays.asList(name + ".htm", "ro/" + name + ".htm")) {
+				String document = new String(Files.readAllBytes(targetDir.resolve(pageFile)), StandardCharsets.UTF_8);
+				assertThat(document, containsString("<h1>" + name + "</h1><section><div class=\"card\">Card</div></section>"));
+				assertThat(cache.getOutputs("res/page/" + name), hasItem(pageFile));
+			}
+		}
+		assertThat(cache.getOutputs("res/page/index"), hasItems("index.htm", "ro/index.htm"));
+
+		// shared component is a dependency of every page using it, in merged build state of all locales
+		Path styleFile = write("res/compo/card/card.css", ".card { border: 2px solid; }");
+		Files.setLastModifiedTime(styleFile, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+		assertThat(new Builder(projectDir, targetDir).build(false), contains("res/page/about", "res/page/contact", "res/page/news"));
+	}
+
+	private Path write(String path, String content) throws IOException {
+		Path file = projectDir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,82 @@
+package com.jslib.wtf.cli.build;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WatcherTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path projectDir;
+	private Watcher watcher;
+
+	@Before
+	public void beforeTest() throws IOException {
+		projectDir = folder.getRoot().toPath();
+		write("project.xml", "<project></project>");
+		write("res/page/index/index.htm", "<body></body>");
+		write("res/theme/reset.css", "* { margin: 0; }");
+		watcher = new Watcher(projectDir);
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		watcher.close();
+	}
+
+	@Test(timeout = 30000)
+	public void GivenWritesWithinDebounce_WhenAwait_ThenSingleResultWithAllChanges() throws Exception {
+		// given
+		Thread editor = new Thread(() -> {
+			try {
+				write("res/page/index/index.htm", "<body><h1>Index</h1></body>");
+				Thread.sleep(100);
+				write("res/theme/reset.css", "* { margin: 0; padding: 0; }");
+			} catch (IOException | InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		editor.start();
+
+		// when
+		Set<String> changes = watcher.await(1000);
+
+		// then
+		editor.join();
+		assertThat(changes, contains("res/page/index/index.htm", "res/theme/reset.css"));
+	}
+
+	@Test(timeout = 30000)
+	public void GivenCreatedDirectory_WhenWriteIntoIt_ThenDirectoryWatched() throws Exception {
+		// given
+		Files.createDirectories(projectDir.resolve("res/page/news"));
+		assertThat(watcher.await(100), hasItem("res/page/news"));
+
+		// when
+		write("res/page/news/news.htm", "<body></body>");
+		Set<String> changes = watcher.await(100);
+
+		// then
+		assertThat(changes, hasItem("res/page/news/news.htm"));
+	}
+
+	private Path write(String path, String content) throws IOException {
+		Path file = projectDir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,120 @@
+package com.jslib.wtf.cli.daemon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DaemonTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path homeDir;
+	private Path workingDir;
+	private Thread server;
+	private Daemon.Command command;
+	private Path executedDir;
+
+	private ByteArrayOutputStream stdout;
+	private ByteArrayOutputStream stderr;
+
+	@Before
+	public void beforeTest() throws Exception {
+		homeDir = folder.newFolder("home").toPath();
+		workingDir = folder.newFolder("project").toPath();
+		stdout = new ByteArrayOutputStream();
+		stderr = new ByteArrayOutputStream();
+
+		Daemon daemon = new Daemon(homeDir, 30000);
+		daemon.setCommand((dir, args) -> {
+			executedDir = dir;
+			return command.execute(dir, args);
+		});
+		server = new Thread(() -> {
+			try {
+				daemon.serve();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		server.start();
+		while (!Files.exists(homeDir.resolve(Daemon.ADDRESS_FILE))) {
+			Thread.sleep(10);
+		}
+	}
+
+	@After
+	public void afterTest() throws InterruptedException {
+		DaemonClient.stop(homeDir);
+		server.join();
+	}
+
+	@Test(timeout = 30000)
+	public void GivenWrongToken_WhenExec_ThenRejectedAndNullExitCode() throws Exception {
+		// given
+		Path addressFile = homeDir.resolve(Daemon.ADDRESS_FILE);
+		byte[] address = Files.readAllBytes(addressFile);
+		String port = new String(address, StandardCharsets.UTF_8).split(" ")[0];
+		Files.write(addressFile, (port + " 00000000000000000000000000000000").getBytes(StandardCharsets.UTF_8));
+
+		// when
+		Integer exitCode = exec("build");
+
+		// then
+		Files.write(addressFile, address);
+		assertThat(exitCode, nullValue());
+		assertThat(executedDir, nullValue());
+	}
+
+	@Test(timeout = 30000)
+	public void GivenCommandOutput_WhenExec_ThenExitCodeAndStreamsRoundTrip() throws Exception {
+		// given
+		command = (dir, args) -> {
+			System.out.print("out " + String.join(" ", args));
+			System.err.print("err");
+			return 3;
+		};
+
+		// when
+		Integer exitCode = exec("build", "--full");
+
+		// then
+		assertThat(exitCode, equalTo(3));
+		assertThat(stdout.toString("UTF-8"), equalTo("out build --full"));
+		assertThat(stderr.toString("UTF-8"), equalTo("err"));
+	}
+
+	@Test(timeout = 30000)
+	public void GivenClientWorkingDir_WhenExec_ThenCommandResolvesAgainstIt() throws Exception {
+		// given
+		command = (dir, args) -> {
+			System.out.print(dir.resolve("project.xml"));
+			return 0;
+		};
+
+		// when
+		Integer exitCode = exec("build");
+
+		// then
+		assertThat(exitCode, equalTo(0));
+		assertThat(executedDir, equalTo(workingDir));
+		assertThat(stdout.toString("UTF-8"), equalTo(workingDir.resolve("project.xml").toString()));
+	}
+
+	private Integer exec(String... args) {
+		return DaemonClient.exec(homeDir, workingDir, new ByteArrayInputStream(new byte[0]), new PrintStream(stdout, true), new PrintStream(stderr, true), args);
+	}
+}
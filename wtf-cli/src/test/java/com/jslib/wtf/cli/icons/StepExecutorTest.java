@@ -0,0 +1,79 @@
+package com.jslib.wtf.cli.icons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StepExecutorTest {
+	private StepExecutor steps;
+
+	@Before
+	public void beforeTest() {
+		steps = new StepExecutor(4);
+	}
+
+	@After
+	public void afterTest() {
+		steps.close();
+	}
+
+	@Test
+	public void GivenDependency_ThenStepRunAfterDependency() throws Exception {
+		// given
+		List<String> trace = new CopyOnWriteArrayList<>();
+		CompletableFuture<Void> first = steps.submit(() -> {
+			Thread.sleep(50);
+			trace.add("first");
+		});
+
+		// when
+		CompletableFuture<Void> second = steps.submit(() -> trace.add("second"), first);
+		steps.await(second);
+
+		// then
+		assertThat(trace, contains("first", "second"));
+	}
+
+	@Test
+	public void GivenIndependentSteps_ThenRunConcurrently() throws Exception {
+		// given
+		CountDownLatch latch = new CountDownLatch(2);
+		StepExecutor.Step step = () -> {
+			latch.countDown();
+			if (!latch.await(1, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Steps not concurrent.");
+			}
+		};
+
+		// when
+		steps.await(steps.submit(step), steps.submit(step));
+
+		// then
+		assertThat(latch.getCount(), equalTo(0L));
+	}
+
+	@Test(expected = IOException.class)
+	public void GivenFailingDependency_ThenAwaitThrowsCause() throws Exception {
+		// given
+		CompletableFuture<Void> failing = steps.submit(() -> {
+			throw new IOException("fail");
+		});
+
+		// when
+		steps.await(steps.submit(() -> {
+		}, failing));
+
+		// then
+	}
+}
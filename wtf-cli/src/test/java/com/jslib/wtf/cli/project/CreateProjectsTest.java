@@ -0,0 +1,115 @@
+package com.jslib.wtf.cli.project;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.commons.cli.Console;
+import com.jslib.commons.cli.ExitCode;
+import com.jslib.commons.cli.FilesUtil;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CreateProjectsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private Console console;
+	@Mock
+	private FilesUtil files;
+
+	@Test
+	public void GivenQuotedValueWithComma_WhenValues_ThenSingleValue() {
+		// given
+		String line = "test,\"Test, site\",en";
+
+		// when
+		List<String> values = CreateProjects.values(line);
+
+		// then
+		assertThat(values, contains("test", "Test, site", "en"));
+	}
+
+	@Test
+	public void GivenEscapedQuotes_WhenValues_ThenUnescapedQuotes() {
+		// given
+		String line = "\"The \"\"test\"\" site\",\"\"\"\"";
+
+		// when
+		List<String> values = CreateProjects.values(line);
+
+		// then
+		assertThat(values, contains("The \"test\" site", "\""));
+	}
+
+	@Test
+	public void GivenEmptyFields_WhenValues_ThenEmptyValues() {
+		// given
+		String line = "test,, ,\"\",";
+
+		// when
+		List<String> values = CreateProjects.values(line);
+
+		// then
+		assertThat(values, contains("test", "", "", "", ""));
+	}
+
+	@Test
+	public void GivenDuplicateProjectName_WhenExec_ThenAbortBeforeCreatingProjects() throws Exception {
+		// given
+		CreateProjects task = task("name,type\nsite,web\nblog,web\nsite,web\n");
+
+		// when
+		ExitCode exitCode = task.exec();
+
+		// then
+		assertThat(exitCode, equalTo(ExitCode.ABORT));
+		verify(console).print("Duplicate project name %s.", "site");
+		verify(files, never()).createDirectory(any(Path.class));
+	}
+
+	@Test
+	public void GivenProjectNameOutsideWorkingDir_WhenExec_ThenAbortBeforeCreatingProjects() throws Exception {
+		// given
+		CreateProjects task = task("name,type\nsite,web\n../site,web\n");
+
+		// when
+		ExitCode exitCode = task.exec();
+
+		// then
+		assertThat(exitCode, equalTo(ExitCode.ABORT));
+		verify(console).print("Bad project name %s. Should be a directory name.", "../site");
+		verify(files, never()).createDirectory(any(Path.class));
+	}
+
+	private CreateProjects task(String specs) throws IOException {
+		Path workingDir = folder.getRoot().toPath();
+		Path specsFile = workingDir.resolve("projects.csv");
+		Files.write(specsFile, specs.getBytes(StandardCharsets.UTF_8));
+		when(files.getWorkingDir()).thenReturn(workingDir);
+		when(files.exists(specsFile)).thenReturn(true);
+
+		CreateProjects task = new CreateProjects();
+		task.setConsole(console);
+		task.setFiles(files);
+		task.setSpecsFile("projects.csv");
+		return task;
+	}
+}
@@ -28,7 +28,7 @@ import com.jslib.commons.cli.Console;
 import com.jslib.commons.cli.ExitCode;
 import com.jslib.commons.cli.FilesUtil;
 import com.jslib.commons.cli.Home;
-import com.jslib.commons.cli.TemplateProcessor;
+import com.jslib.wtf.cli.template.TemplateProcessor;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ProjectCreateTest {
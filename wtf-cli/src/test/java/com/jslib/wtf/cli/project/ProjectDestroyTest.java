@@ -2,7 +2,7 @@ package com.jslib.wtf.cli.project;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
-import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -22,6 +22,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import com.jslib.commons.cli.Console;
 import com.jslib.commons.cli.ExitCode;
 import com.jslib.commons.cli.FilesUtil;
+import com.jslib.wtf.cli.trash.Progress;
+import com.jslib.wtf.cli.trash.Trash;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Model.CommandSpec;
@@ -35,6 +37,8 @@ public class ProjectDestroyTest {
 	private Console console;
 	@Mock
 	private FilesUtil files;
+	@Mock
+	private Trash trash;
 
 	@Mock
 	private Path workingDir;
@@ -42,6 +46,8 @@ public class ProjectDestroyTest {
 	private Path projectDir;
 	@Mock
 	private Path descriptorFile;
+	@Mock
+	private Path trashDir;
 
 	private ProjectDestroy task;
 
@@ -59,6 +65,7 @@ public class ProjectDestroyTest {
 		task.setConsole(console);
 		task.setFiles(files);
 		task.setName("test");
+		task.setTrash(trash);
 	}
 
 	@Test
@@ -70,7 +77,8 @@ public class ProjectDestroyTest {
 		ExitCode exitCode = task.exec();
 
 		// then
-		verify(files, times(1)).cleanDirectory(eq(projectDir), anyBoolean());
+		verify(trash, times(1)).discard(projectDir);
+		verify(trash, times(1)).sweepBackground();
 		assertThat(exitCode, equalTo(ExitCode.SUCCESS));
 		verify(console, times(1)).confirm(anyString(), anyString());
 		verify(console, times(1)).crlf();
@@ -86,7 +94,7 @@ public class ProjectDestroyTest {
 		ExitCode exitCode = task.exec();
 
 		// then
-		verify(files, times(0)).cleanDirectory(eq(projectDir), anyBoolean());
+		verify(trash, times(0)).discard(any());
 		assertThat(exitCode, equalTo(ExitCode.CANCEL));
 		verify(console, times(1)).crlf();
 		verify(console, times(1)).print(anyString());
@@ -104,7 +112,7 @@ public class ProjectDestroyTest {
 		ExitCode exitCode = task.exec();
 
 		// then
-		verify(files, times(0)).cleanDirectory(eq(projectDir), anyBoolean());
+		verify(trash, times(0)).discard(any());
 		assertThat(exitCode, equalTo(ExitCode.BAD_PARAMETER));
 		verify(console, times(0)).crlf();
 		verify(console, times(0)).print(anyString());
@@ -119,7 +127,7 @@ public class ProjectDestroyTest {
 		ExitCode exitCode = task.exec();
 
 		// then
-		verify(files, times(0)).cleanDirectory(eq(projectDir), anyBoolean());
+		verify(trash, times(0)).discard(any());
 		assertThat(exitCode, equalTo(ExitCode.ABORT));
 		verify(console, times(0)).confirm(anyString(), anyString());
 		verify(console, times(1)).print(anyString(), eq(projectDir));
@@ -138,10 +146,28 @@ public class ProjectDestroyTest {
 		ExitCode exitCode = task.exec();
 
 		// then
-		verify(files, times(1)).cleanDirectory(eq(projectDir), anyBoolean());
+		verify(trash, times(1)).discard(projectDir);
+		verify(trash, times(1)).sweepBackground();
 		assertThat(exitCode, equalTo(ExitCode.SUCCESS));
 		verify(console, times(1)).confirm(anyString(), anyString());
 		verify(console, times(1)).crlf();
 		verify(console, times(0)).print(anyString());
 	}
+
+	@Test
+	public void GivenUserConfirmAndWait_ThenProjectDestroyInForeground() throws IOException {
+		// given
+		task.setWait(true);
+		when(console.confirm(anyString(), anyString())).thenReturn(true);
+		when(trash.discard(projectDir)).thenReturn(trashDir);
+
+		// when
+		ExitCode exitCode = task.exec();
+
+		// then
+		verify(trash, times(1)).discard(projectDir);
+		verify(trash, times(1)).delete(eq(trashDir), any(Progress.class), any());
+		verify(trash, times(0)).sweepBackground();
+		assertThat(exitCode, equalTo(ExitCode.SUCCESS));
+	}
 }
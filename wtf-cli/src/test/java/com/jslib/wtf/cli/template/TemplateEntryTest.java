@@ -0,0 +1,53 @@
+package com.jslib.wtf.cli.template;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class TemplateEntryTest {
+	@Test
+	public void GivenVelocityFile_WhenScan_ThenPathAndContentVariables() {
+		// given
+		byte[] content = "$package(\"${package}\"); // ${author}".getBytes(StandardCharsets.UTF_8);
+
+		// when
+		TemplateEntry entry = TemplateEntry.scan("script/${packagePath}/Index.js.vtl", content);
+
+		// then
+		assertThat(entry.getKind(), equalTo(TemplateEntry.Kind.VELOCITY));
+		assertThat(entry.getVariables(), contains("author", "package", "packagePath"));
+		assertThat(entry.getSize(), equalTo((long) content.length));
+	}
+
+	@Test
+	public void GivenVerbatimFile_WhenScan_ThenContentVariablesIgnored() {
+		// given
+		byte[] content = "body { content: '${title}'; }".getBytes(StandardCharsets.UTF_8);
+
+		// when
+		TemplateEntry entry = TemplateEntry.scan("res/theme/styles.css", content);
+
+		// then
+		assertThat(entry.getKind(), equalTo(TemplateEntry.Kind.VERBATIM));
+		assertThat(entry.getVariables().isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void GivenManifestLine_WhenParse_ThenSameEntry() {
+		// given
+		TemplateEntry entry = TemplateEntry.scan("res/page/home/!home.xml", "${package-path}".getBytes(StandardCharsets.UTF_8));
+
+		// when
+		TemplateEntry parsed = TemplateEntry.parse(entry.toString());
+
+		// then
+		assertThat(parsed.getName(), equalTo("res/page/home/!home.xml"));
+		assertThat(parsed.getKind(), equalTo(TemplateEntry.Kind.LEGACY));
+		assertThat(parsed.getHash(), equalTo(entry.getHash()));
+		assertThat(parsed.getVariables(), contains("package-path"));
+	}
+}
@@ -0,0 +1,180 @@
+package com.jslib.wtf.cli.update;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class DownloaderTest {
+	private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] content;
+	private String checksum;
+	private List<String> ranges;
+
+	private HttpServer server;
+	private CloseableHttpClient client;
+	private URI uri;
+	private Path targetFile;
+
+	@Before
+	public void beforeTest() throws Exception {
+		content = new byte[100000];
+		new Random(1964).nextBytes(content);
+		checksum = hex(MessageDigest.getInstance("SHA-1").digest(content));
+		ranges = new CopyOnWriteArrayList<>();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/assembly.zip", this::handleContent);
+		server.createContext("/assembly.zip.sha1", exchange -> send(exchange, 200, (checksum + "  assembly.zip").getBytes(StandardCharsets.US_ASCII)));
+		server.start();
+
+		client = HttpClients.createDefault();
+		uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/assembly.zip");
+		targetFile = folder.getRoot().toPath().resolve("assembly.zip");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		client.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void GivenSingleSegment_WhenDownload_ThenTargetFileContent() throws IOException {
+		// given
+		Downloader downloader = new Downloader(client, 1);
+
+		// when
+		downloader.download(uri, targetFile);
+
+		// then
+		assertThat(Arrays.equals(Files.readAllBytes(targetFile), content), equalTo(true));
+		assertThat(Files.exists(targetFile.resolveSibling("assembly.zip.part")), equalTo(false));
+	}
+
+	@Test
+	public void GivenPartFile_WhenDownload_ThenResumeFromPartLength() throws IOException {
+		// given
+		Files.write(targetFile.resolveSibling("assembly.zip.part"), Arrays.copyOf(content, 40000));
+		Downloader downloader = new Downloader(client, 1);
+
+		// when
+		downloader.download(uri, targetFile);
+
+		// then
+		assertThat(ranges, hasItem("bytes=40000-"));
+		assertThat(Arrays.equals(Files.readAllBytes(targetFile), content), equalTo(true));
+	}
+
+	@Test
+	public void GivenMultipleSegments_WhenDownload_ThenParallelRanges() throws IOException {
+		// given
+		Downloader downloader = new Downloader(client, 4);
+
+		// when
+		downloader.download(uri, targetFile);
+
+		// then
+		assertThat(ranges, hasSize(4));
+		assertThat(ranges, hasItem("bytes=75000-99999"));
+		assertThat(Arrays.equals(Files.readAllBytes(targetFile), content), equalTo(true));
+	}
+
+	@Test
+	public void GivenPartFilesFromOtherPlan_WhenDownload_ThenStalePartsDeleted() throws IOException {
+		// given
+		Files.write(targetFile.resolveSibling("assembly.zip.part"), Arrays.copyOf(content, 40000));
+		Files.write(targetFile.resolveSibling("assembly.zip.part0-33332"), Arrays.copyOf(content, 33333));
+		Downloader downloader = new Downloader(client, 4);
+
+		// when
+		downloader.download(uri, targetFile);
+
+		// then
+		assertThat(Files.exists(targetFile.resolveSibling("assembly.zip.part")), equalTo(false));
+		assertThat(Files.exists(targetFile.resolveSibling("assembly.zip.part0-33332")), equalTo(false));
+		assertThat(ranges, hasItem("bytes=0-24999"));
+		assertThat(Arrays.equals(Files.readAllBytes(targetFile), content), equalTo(true));
+	}
+
+	@Test(expected = IOException.class)
+	public void GivenBadChecksum_WhenDownload_ThenException() throws IOException {
+		// given
+		checksum = "0000000000000000000000000000000000000000";
+		Downloader downloader = new Downloader(client, 1);
+
+		// when
+		downloader.download(uri, targetFile);
+
+		// then
+	}
+
+	private void handleContent(HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+		if (exchange.getRequestMethod().equals("HEAD")) {
+			exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (range == null) {
+			send(exchange, 200, content);
+			return;
+		}
+		ranges.add(range);
+
+		Matcher matcher = RANGE_PATTERN.matcher(range);
+		matcher.find();
+		int start = Integer.parseInt(matcher.group(1));
+		int end = matcher.group(2).isEmpty() ? content.length - 1 : Integer.parseInt(matcher.group(2));
+		exchange.getResponseHeaders().add("Content-Range", String.format("bytes %d-%d/%d", start, end, content.length));
+		send(exchange, 206, Arrays.copyOfRange(content, start, end + 1));
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(body);
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder();
+		for (byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+}
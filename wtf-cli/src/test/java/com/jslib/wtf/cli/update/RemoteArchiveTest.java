@@ -0,0 +1,210 @@
+package com.jslib.wtf.cli.update;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.commons.cli.Console;
+import com.jslib.commons.cli.FilesUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteArchiveTest {
+	private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private Console console;
+	@Mock
+	private FilesUtil files;
+
+	private byte[] archive;
+	private boolean rangeSupport;
+
+	private HttpServer server;
+	private CloseableHttpClient client;
+	private URI uri;
+	private Path homeDir;
+	private Path deltaFile;
+	private Update update;
+
+	@Before
+	public void beforeTest() throws IOException {
+		archive = archive("wtf/", "", "wtf/bin/", "", "wtf/bin/unchanged.txt", "unchanged", "wtf/bin/changed.txt", "changed v2", "wtf/lib/added.jar", "added");
+		rangeSupport = true;
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/wtf-assembly.zip", this::handleArchive);
+		server.start();
+
+		client = HttpClients.createDefault();
+		uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/wtf-assembly.zip");
+
+		homeDir = folder.getRoot().toPath();
+		write("bin/unchanged.txt", "unchanged");
+		write("bin/changed.txt", "changed v1");
+		write("bin/removed.txt", "removed");
+		deltaFile = homeDir.resolve("wtf-assembly.zip");
+
+		when(files.exists(any(Path.class))).thenAnswer(invocation -> Files.exists(invocation.<Path> getArgument(0)));
+		update = new Update();
+		update.setConsole(console);
+		update.setFiles(files);
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		client.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void GivenChangedAndUnchangedFiles_WhenDownloadDelta_ThenOnlyChangedEntries() throws IOException {
+		// given
+
+		// when
+		boolean delta = update.downloadDelta(client, uri, homeDir, deltaFile);
+
+		// then
+		assertThat(delta, equalTo(true));
+		assertThat(Files.exists(deltaFile.resolveSibling("wtf-assembly.zip.part")), equalTo(false));
+		try (ZipFile zipFile = new ZipFile(deltaFile.toFile())) {
+			assertThat(names(zipFile), containsInAnyOrder("wtf/bin/changed.txt", "wtf/lib/added.jar", RemoteArchive.DELTA_MANIFEST));
+			assertThat(content(zipFile, "wtf/bin/changed.txt"), equalTo("changed v2"));
+			assertThat(content(zipFile, "wtf/lib/added.jar"), equalTo("added"));
+		}
+	}
+
+	@Test
+	public void GivenRemovedFile_WhenDownloadDelta_ThenManifestListsOnlyRemoteEntries() throws IOException {
+		// given
+
+		// when
+		update.downloadDelta(client, uri, homeDir, deltaFile);
+
+		// then
+		try (ZipFile zipFile = new ZipFile(deltaFile.toFile())) {
+			List<String> manifest = Arrays.asList(content(zipFile, RemoteArchive.DELTA_MANIFEST).split("\n"));
+			// updater deletes installed files not listed by manifest, that is, bin/removed.txt
+			assertThat(manifest, containsInAnyOrder("wtf/", "wtf/bin/", "wtf/bin/unchanged.txt", "wtf/bin/changed.txt", "wtf/lib/added.jar"));
+		}
+	}
+
+	@Test
+	public void GivenServerWithoutRanges_WhenDownloadDelta_ThenFallBackToFullDownload() throws IOException {
+		// given
+		rangeSupport = false;
+
+		// when
+		boolean delta = update.downloadDelta(client, uri, homeDir, deltaFile);
+
+		// then
+		assertThat(delta, equalTo(false));
+		assertThat(Files.exists(deltaFile), equalTo(false));
+	}
+
+	private void handleArchive(HttpExchange exchange) throws IOException {
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (!rangeSupport || range == null) {
+			send(exchange, 200, archive);
+			return;
+		}
+
+		Matcher matcher = RANGE_PATTERN.matcher(range);
+		matcher.find();
+		int start;
+		int end;
+		if (matcher.group(1).isEmpty()) {
+			// suffix range, that is, last bytes
+			start = Math.max(0, archive.length - Integer.parseInt(matcher.group(2)));
+			end = archive.length - 1;
+		} else {
+			start = Integer.parseInt(matcher.group(1));
+			end = matcher.group(2).isEmpty() ? archive.length - 1 : Integer.parseInt(matcher.group(2));
+		}
+		exchange.getResponseHeaders().add("Content-Range", String.format("bytes %d-%d/%d", start, end, archive.length));
+		send(exchange, 206, Arrays.copyOfRange(archive, start, end + 1));
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(body);
+		}
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = homeDir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// zip archive with deflated entries from name and content pairs
+	private static byte[] archive(String... entries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipStream = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				zipStream.putNextEntry(new ZipEntry(entries[i]));
+				zipStream.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				zipStream.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static List<String> names(ZipFile zipFile) {
+		List<String> names = new ArrayList<>();
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			names.add(entries.nextElement().getName());
+		}
+		return names;
+	}
+
+	private static String content(ZipFile zipFile, String name) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+			byte[] buffer = new byte[1024];
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				bytes.write(buffer, 0, length);
+			}
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
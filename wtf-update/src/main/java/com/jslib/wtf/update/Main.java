@@ -2,18 +2,30 @@ package com.jslib.wtf.update;
 
 import static java.lang.String.format;
 
-import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 public class Main {
 	public static void main(String... args) throws InterruptedException, IOException {
@@ -35,6 +47,12 @@ public class Main {
 	// D:\java\wtf-1.0\bin\wtf-assembly-1.0.5-SNAPSHOT.zip
 	private static final Pattern ASSEMBLY_FILE_PATTERN = Pattern.compile("^wtf-assembly.+\\.zip$");
 
+	// keep in sync with com.jslib.wtf.cli.update.RemoteArchive
+	private static final String DELTA_MANIFEST = "wtf-delta.manifest";
+
+	private static final int MAX_THREADS = 8;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	private final boolean verbose;
 
 	protected Main(boolean verbose) {
@@ -73,30 +91,60 @@ public class Main {
 		if (verbose) {
 			print("");
 		}
-		print("Removing installed files...");
-		cleanDirectory(new File(homeDir, "bin"), propertiesFile);
-		cleanDirectory(new File(homeDir, "lib"));
-		cleanDirectory(new File(homeDir, "manual"));
+		try (ZipFile zipFile = new ZipFile(assemblyFile)) {
+			// delta assembly contains only changed files and lists all assembly files into manifest entry
+			Set<File> assemblyFiles = new HashSet<>();
+			ZipEntry manifestEntry = zipFile.getEntry(DELTA_MANIFEST);
+			if (manifestEntry != null) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(manifestEntry), StandardCharsets.UTF_8))) {
+					String entryName;
+					while ((entryName = reader.readLine()) != null) {
+						assemblyFiles.add(new File(homeDir, zipFileName(entryName)));
+					}
+				}
+			}
 
-		if (verbose) {
-			print("");
-		}
-		print("Copying new files...");
-		try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(assemblyFile))) {
-			ZipEntry zipEntry;
-			while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+			List<ZipEntry> zipEntries = new ArrayList<>();
+			Set<File> directories = new HashSet<>();
+			Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+			while (enumeration.hasMoreElements()) {
+				ZipEntry zipEntry = enumeration.nextElement();
 				String fileName = zipFileName(zipEntry.getName());
-				if (fileName.isEmpty() || fileName.endsWith("/")) {
+				if (fileName.isEmpty() || fileName.endsWith("/") || zipEntry.getName().equals(DELTA_MANIFEST)) {
 					continue;
 				}
+				if (manifestEntry == null) {
+					assemblyFiles.add(new File(homeDir, fileName));
+				}
 
 				if (fileName.equals("bin/wtf.properties")) {
-					mergeProperties(zipInputStream, propertiesFile);
+					try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+						mergeProperties(inputStream, propertiesFile);
+					}
 					continue;
 				}
 
-				copy(zipInputStream, new File(homeDir, fileName));
+				zipEntries.add(zipEntry);
+				directories.add(new File(homeDir, fileName).getParentFile());
 			}
+
+			print("Removing obsolete files...");
+			assemblyFiles.add(propertiesFile);
+			removeObsoleteFiles(new File(homeDir, "bin"), assemblyFiles);
+			removeObsoleteFiles(new File(homeDir, "lib"), assemblyFiles);
+			removeObsoleteFiles(new File(homeDir, "manual"), assemblyFiles);
+
+			if (verbose) {
+				print("");
+			}
+			print("Copying changed files...");
+			// create directories tree once, up front, so that parallel copy workers only write files
+			for (File directory : directories) {
+				if (!directory.isDirectory() && !directory.mkdirs()) {
+					throw new IOException(format("Cannot create directory %s", directory));
+				}
+			}
+			extract(zipFile, zipEntries, homeDir);
 		}
 
 		assemblyFile.delete();
@@ -107,11 +155,8 @@ public class Main {
 		return 0;
 	}
 
-	private void cleanDirectory(File dir, File... excludes) throws IOException {
-		cleanDirectory(dir, Arrays.asList(excludes));
-	}
-
-	private void cleanDirectory(File dir, List<File> excludes) throws IOException {
+	// delete installed files not present into assembly, together with directories left empty
+	private void removeObsoleteFiles(File dir, Set<File> assemblyFiles) throws IOException {
 		File[] files = dir.listFiles();
 		if (files == null) {
 			return;
@@ -119,9 +164,14 @@ public class Main {
 
 		for (File file : files) {
 			if (file.isDirectory()) {
-				cleanDirectory(file, excludes);
+				removeObsoleteFiles(file, assemblyFiles);
+				String[] children = file.list();
+				if (children != null && children.length == 0) {
+					file.delete();
+				}
+				continue;
 			}
-			if (!excludes.contains(file)) {
+			if (!assemblyFiles.contains(file)) {
 				if (verbose) {
 					print("Delete %s", file);
 				}
@@ -130,18 +180,18 @@ public class Main {
 		}
 	}
 
-	private void mergeProperties(ZipInputStream zipInputStream, File propertiesFile) throws IOException {
+	private void mergeProperties(InputStream inputStream, File propertiesFile) throws IOException {
 		if (verbose) {
 			print("Copy file %s", propertiesFile);
 			print("Merge global properties %s", propertiesFile);
 		}
 
 		Properties assemblyProperties = new Properties();
-		assemblyProperties.load(zipInputStream);
+		assemblyProperties.load(inputStream);
 
 		Properties properties = new Properties();
-		try (FileInputStream inputStream = new FileInputStream(propertiesFile)) {
-			properties.load(inputStream);
+		try (FileInputStream fileInputStream = new FileInputStream(propertiesFile)) {
+			properties.load(fileInputStream);
 		}
 
 		assemblyProperties.forEach((key, value) -> properties.merge(key, value, (oldValue, newValue) -> newValue));
@@ -151,19 +201,62 @@ public class Main {
 		}
 	}
 
-	private void copy(ZipInputStream zipInputStream, File outputFile) throws IOException {
+	// zip file supports concurrent reading of distinct entries; every entry is inflated and written by a pool worker
+	private void extract(ZipFile zipFile, List<ZipEntry> zipEntries, File homeDir) throws IOException {
+		int threadsCount = Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (ZipEntry zipEntry : zipEntries) {
+				futures.add(executor.submit(() -> {
+					copy(zipFile, zipEntry, new File(homeDir, zipFileName(zipEntry.getName())));
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted assembly extraction.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void copy(ZipFile zipFile, ZipEntry zipEntry, File outputFile) throws IOException {
+		// zip entry CRC is used as file hash; installed file is not touched if has the same content
+		if (outputFile.isFile() && outputFile.length() == zipEntry.getSize() && crc(outputFile) == zipEntry.getCrc()) {
+			return;
+		}
 		if (verbose) {
 			print("Copy file %s", outputFile);
 		}
-		outputFile.getParentFile().mkdirs();
 
-		byte[] buffer = new byte[4096];
-		try (BufferedOutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(outputFile), buffer.length)) {
-			int len;
-			while ((len = zipInputStream.read(buffer)) > 0) {
-				fileOutputStream.write(buffer, 0, len);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream inputStream = zipFile.getInputStream(zipEntry); OutputStream outputStream = new FileOutputStream(outputFile)) {
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, length);
+			}
+		}
+	}
+
+	private static long crc(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream inputStream = new FileInputStream(file)) {
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				crc.update(buffer, 0, length);
 			}
 		}
+		return crc.getValue();
 	}
 
 	private static File assemblyFile(File homeDir) throws IOException {
@@ -186,7 +279,7 @@ public class Main {
 		return zipEntityName.substring(index);
 	}
 
-	private static void print(String format, Object... args) {
+	private static synchronized void print(String format, Object... args) {
 		System.out.printf(format, args);
 		System.out.println();
 	}